@@ -1,5 +1,6 @@
 package com.example.OldSchoolTeed.Config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -34,6 +35,8 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeHttpRequests(auth -> auth
+                        // Fin de respuestas asíncronas (StreamingResponseBody): ya se autorizó la petición original
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         //  RUTAS PÚBLICAS
                         .requestMatchers("/auth/**").permitAll()
                         .requestMatchers("/actuator/**").permitAll() // Monitoreo (Actuator)
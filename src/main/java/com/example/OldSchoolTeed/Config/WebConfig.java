@@ -1,26 +1,29 @@
 package com.example.OldSchoolTeed.Config;
 
+import jakarta.servlet.MultipartConfigElement;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry; // Importante para Angular
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
-    @Value("${file.upload-dir}")
-    private String uploadDir;
-
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        Path uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
-
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:" + uploadPath.toString() + "/");
+    // Las partes multipart se escriben en disco (nunca en el heap) dentro del mismo volumen que
+    // las subidas: StorageService las mueve con un rename en lugar de copiarlas otra vez.
+    @Bean
+    public MultipartConfigElement multipartConfigElement(MultipartProperties multipartProperties,
+                                                         @Value("${file.upload-dir}") String uploadDir) throws IOException {
+        Path spool = Files.createDirectories(Paths.get(uploadDir).toAbsolutePath().normalize().resolve(".tmp"));
+        MultipartConfigElement base = multipartProperties.createMultipartConfig();
+        return new MultipartConfigElement(spool.toString(), base.getMaxFileSize(), base.getMaxRequestSize(), 0);
     }
 
     @Override
@@ -5,6 +5,7 @@ import io.sentry.SentryLevel;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.validation.FieldError;
@@ -82,6 +83,20 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
     }
 
+    // Capturar parámetros inválidos (400); solo la excepción dedicada, no cualquier IllegalArgumentException
+    @ExceptionHandler(SolicitudInvalidaException.class)
+    public ResponseEntity<Map<String, Object>> handleSolicitudInvalida(SolicitudInvalidaException ex, WebRequest request) {
+        log.warn("Petición inválida: {}", ex.getMessage());
+        return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage(), request.getDescription(false));
+    }
+
+    // Capturar escrituras concurrentes sobre el mismo registro (@Version) (409)
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleOptimisticLocking(ObjectOptimisticLockingFailureException ex, WebRequest request) {
+        log.warn("Conflicto de concurrencia en {}: {}", ex.getPersistentClassName(), ex.getMessage());
+        return buildResponse(HttpStatus.CONFLICT, "El registro fue modificado por otra operación. Vuelve a intentarlo.", request.getDescription(false));
+    }
+
     //  Capturar errores generales Críticos (500)
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleGlobalException(Exception ex, WebRequest request) {
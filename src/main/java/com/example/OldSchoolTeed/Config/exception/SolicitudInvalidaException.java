@@ -0,0 +1,12 @@
+package com.example.OldSchoolTeed.Config.exception;
+
+/**
+ * Datos de la petición no válidos (parámetros, cursor, archivo subido...): se responde 400.
+ * Un IllegalArgumentException cualquiera sigue siendo un error interno (500).
+ */
+public class SolicitudInvalidaException extends RuntimeException {
+
+    public SolicitudInvalidaException(String message) {
+        super(message);
+    }
+}
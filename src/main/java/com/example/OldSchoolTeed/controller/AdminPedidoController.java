@@ -7,9 +7,11 @@ import com.example.OldSchoolTeed.dto.PedidoResponse;
 import com.example.OldSchoolTeed.service.PedidoService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -31,6 +33,14 @@ public class AdminPedidoController {
         return ResponseEntity.ok(pedidoService.getAllPedidosAdmin());
     }
 
+    // Misma lista escrita por lotes (para historiales grandes)
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllPedidos() {
+        log.info("Admin: Recibida petición GET /admin/pedidos/stream");
+        StreamingResponseBody body = pedidoService::streamAllPedidosAdmin;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
     @PatchMapping("/{pedidoId}/estado")
     public ResponseEntity<PedidoResponse> updatePedidoStatus(
             @PathVariable Integer pedidoId,
@@ -1,15 +1,20 @@
 package com.example.OldSchoolTeed.controller;
 
+import com.example.OldSchoolTeed.service.LimpiezaUploadsService;
 import com.example.OldSchoolTeed.service.ScheduledTasksService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.nio.charset.StandardCharsets;
@@ -24,9 +29,12 @@ import java.util.Map;
 public class AdminTaskController {
 
     private final ScheduledTasksService scheduledTasksService;
+    private final LimpiezaUploadsService limpiezaUploadsService;
 
-    public AdminTaskController(ScheduledTasksService scheduledTasksService) {
+    public AdminTaskController(ScheduledTasksService scheduledTasksService,
+                               LimpiezaUploadsService limpiezaUploadsService) {
         this.scheduledTasksService = scheduledTasksService;
+        this.limpiezaUploadsService = limpiezaUploadsService;
     }
 
     // Helper para convertir texto en archivo descargable
@@ -67,6 +75,30 @@ public class AdminTaskController {
         return buildFileResponse(report, "reporte_ventas");
     }
 
+    // Limpieza de imágenes huérfanas (por defecto solo simula). Corre en segundo plano: devuelve el id del trabajo
+    @PostMapping("/cleanup-uploads")
+    public ResponseEntity<Map<String, String>> runCleanupUploads(@RequestParam(defaultValue = "true") boolean dryRun) {
+        log.warn("ADMIN: Limpieza manual de subidas (dryRun={}).", dryRun);
+        String jobId = limpiezaUploadsService.iniciar(dryRun);
+        if (jobId == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "message", "Ya hay una limpieza de subidas en curso."
+            ));
+        }
+        return ResponseEntity.accepted().body(Map.of(
+                "jobId", jobId,
+                "message", "Limpieza de subidas iniciada. Consulta el reporte en /admin/tasks/cleanup-uploads/" + jobId
+        ));
+    }
+
+    // Reporte de la limpieza (Descarga Reporte cuando terminó; 202 mientras sigue en curso)
+    @GetMapping("/cleanup-uploads/{jobId}")
+    public ResponseEntity<?> getCleanupUploadsReport(@PathVariable String jobId) {
+        return limpiezaUploadsService.reporte(jobId)
+                .<ResponseEntity<?>>map(report -> buildFileResponse(report, "reporte_subidas"))
+                .orElseGet(() -> ResponseEntity.accepted().body(Map.of("message", "La limpieza de subidas sigue en curso.")));
+    }
+
     //  Backup de Base de Datos
     @PostMapping("/backup-db")
     public ResponseEntity<Map<String, String>> runBackupDb() {
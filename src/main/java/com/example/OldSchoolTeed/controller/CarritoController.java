@@ -1,6 +1,7 @@
 package com.example.OldSchoolTeed.controller;
 
 import com.example.OldSchoolTeed.dto.AddItemRequest;
+import com.example.OldSchoolTeed.dto.CarritoLoteRequest;
 import com.example.OldSchoolTeed.dto.CarritoResponse;
 import com.example.OldSchoolTeed.dto.UpdateCantidadRequest;
 import com.example.OldSchoolTeed.service.CarritoService;
@@ -42,37 +43,61 @@ public class CarritoController {
         return ResponseEntity.ok(carritoService.getCarritoByUsuario(userEmail));
     }
 
+    // ?delta=true devuelve solo la línea afectada, el total y la versión (CarritoDeltaResponse)
     @PostMapping("/agregar")
-    public ResponseEntity<CarritoResponse> addItem(
+    public ResponseEntity<?> addItem(
             @Valid @RequestBody AddItemRequest request,
+            @RequestParam(defaultValue = "false") boolean delta,
             Authentication authentication
     ) {
         String email = getEmailFromAuthentication(authentication);
         log.info("POST /carrito/agregar -> User: {}, ProdID: {}, Cant: {}", email, request.getProductoId(), request.getCantidad());
+        if (delta) {
+            return ResponseEntity.ok(carritoService.addItemToCarritoDelta(email, request));
+        }
         CarritoResponse carrito = carritoService.addItemToCarrito(email, request);
         return ResponseEntity.ok(carrito);
     }
 
     @DeleteMapping("/eliminar/{detalleCarritoId}")
-    public ResponseEntity<CarritoResponse> removeItem(
+    public ResponseEntity<?> removeItem(
             @PathVariable Integer detalleCarritoId,
+            @RequestParam(defaultValue = "false") boolean delta,
             Authentication authentication
     ) {
         String email = getEmailFromAuthentication(authentication);
         log.info("DELETE /carrito/eliminar/{} solicitado por: {}", detalleCarritoId, email);
+        if (delta) {
+            return ResponseEntity.ok(carritoService.removeItemFromCarritoDelta(email, detalleCarritoId));
+        }
         CarritoResponse carrito = carritoService.removeItemFromCarrito(email, detalleCarritoId);
         return ResponseEntity.ok(carrito);
     }
 
     @PutMapping("/actualizar-cantidad/{detalleCarritoId}")
-    public ResponseEntity<CarritoResponse> updateQuantity(
+    public ResponseEntity<?> updateQuantity(
             @PathVariable Integer detalleCarritoId,
             @Valid @RequestBody UpdateCantidadRequest request,
+            @RequestParam(defaultValue = "false") boolean delta,
             Authentication authentication
     ) {
         String email = getEmailFromAuthentication(authentication);
         log.info("PUT /actualizar-cantidad/{} -> User: {}, NuevaCant: {}", detalleCarritoId, email, request.getNuevaCantidad());
+        if (delta) {
+            return ResponseEntity.ok(carritoService.updateItemQuantityDelta(email, detalleCarritoId, request));
+        }
         CarritoResponse carrito = carritoService.updateItemQuantity(email, detalleCarritoId, request);
         return ResponseEntity.ok(carrito);
     }
+
+    // Varias operaciones en una sola petición (kits completos, restaurar carrito tras el login)
+    @PostMapping("/lote")
+    public ResponseEntity<CarritoResponse> aplicarLote(
+            @Valid @RequestBody CarritoLoteRequest request,
+            Authentication authentication
+    ) {
+        String email = getEmailFromAuthentication(authentication);
+        log.info("POST /carrito/lote -> User: {}, Operaciones: {}", email, request.getOperaciones().size());
+        return ResponseEntity.ok(carritoService.aplicarLote(email, request));
+    }
 }
\ No newline at end of file
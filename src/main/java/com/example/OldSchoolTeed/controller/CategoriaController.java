@@ -2,13 +2,16 @@ package com.example.OldSchoolTeed.controller;
 
 import com.example.OldSchoolTeed.dto.CategoriaRequest;
 import com.example.OldSchoolTeed.dto.CategoriaResponse;
+import com.example.OldSchoolTeed.service.CatalogoVersionService;
 import com.example.OldSchoolTeed.service.CategoriaService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -18,23 +21,31 @@ import java.util.List;
 public class CategoriaController {
 
     private final CategoriaService categoriaService;
+    private final CatalogoVersionService catalogoVersionService;
 
-    public CategoriaController(CategoriaService categoriaService) {
+    public CategoriaController(CategoriaService categoriaService, CatalogoVersionService catalogoVersionService) {
         this.categoriaService = categoriaService;
+        this.catalogoVersionService = catalogoVersionService;
     }
 
     //  Endpoints Públicos
 
     @GetMapping
-    public ResponseEntity<List<CategoriaResponse>> obtenerTodasLasCategorias() {
+    public ResponseEntity<List<CategoriaResponse>> obtenerTodasLasCategorias(WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogoVersionService.etag(), catalogoVersionService.ultimaModificacion())) {
+            return null; // 304: el catálogo no cambió desde la versión que tiene el cliente
+        }
         log.info("GET /categorias -> Listando todas");
-        return ResponseEntity.ok(categoriaService.getAllCategorias());
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(categoriaService.getAllCategorias());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<CategoriaResponse> obtenerCategoriaPorId(@PathVariable Integer id) {
+    public ResponseEntity<CategoriaResponse> obtenerCategoriaPorId(@PathVariable Integer id, WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogoVersionService.etag(), catalogoVersionService.ultimaModificacion())) {
+            return null;
+        }
         log.info("GET /categorias/{}", id);
-        return ResponseEntity.ok(categoriaService.getCategoriaById(id));
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(categoriaService.getCategoriaById(id));
     }
 
     //  Endpoints de Administrador
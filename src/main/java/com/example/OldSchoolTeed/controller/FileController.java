@@ -1,19 +1,17 @@
 package com.example.OldSchoolTeed.controller;
 
+import com.example.OldSchoolTeed.service.ArchivoEstaticoService;
 import com.example.OldSchoolTeed.service.ProductoService;
 import com.example.OldSchoolTeed.service.StorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.util.Map;
 
 @RestController
@@ -23,10 +21,13 @@ public class FileController {
 
     private final StorageService storageService;
     private final ProductoService productoService;
+    private final ArchivoEstaticoService archivoEstaticoService;
 
-    public FileController(StorageService storageService, ProductoService productoService) {
+    public FileController(StorageService storageService, ProductoService productoService,
+                          ArchivoEstaticoService archivoEstaticoService) {
         this.storageService = storageService;
         this.productoService = productoService;
+        this.archivoEstaticoService = archivoEstaticoService;
     }
 
     @PostMapping("/upload/producto/{productoId}")
@@ -40,12 +41,7 @@ public class FileController {
         // Validamos existencia (si falla lanza EntityNotFoundException, capturado globalmente)
         productoService.getProductoById(productoId);
 
-        // Validación simple de tipo
-        String contentType = file.getContentType();
-        if (contentType == null || (!contentType.equals("image/jpeg") && !contentType.equals("image/png") && !contentType.equals("image/gif"))) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tipo de archivo no soportado. Solo JPG, PNG, GIF.");
-        }
-
+        // El tipo real se valida en StorageService por magic bytes (Content-Type lo decide el cliente)
         String filename = storageService.storeFile(file);
         String fileDownloadUri = ServletUriComponentsBuilder.fromCurrentContextPath()
                 .path("/files/uploads/")
@@ -61,18 +57,11 @@ public class FileController {
         ));
     }
 
-    @GetMapping("/uploads/{filename:.+}")
-    public ResponseEntity<Resource> serveFile(@PathVariable String filename) throws IOException {
+    // {*ruta} admite subdirectorios: los archivos por contenido viven en ab/cd/<sha256>.<ext>
+    @GetMapping("/uploads/{*ruta}")
+    public void serveFile(@PathVariable String ruta, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String filename = ruta.startsWith("/") ? ruta.substring(1) : ruta;
         log.debug("GET /files/uploads/{}", filename);
-
-        Resource file = storageService.loadFileAsResource(filename);
-        String contentType = Files.probeContentType(file.getFile().toPath());
-        if (contentType == null) {
-            contentType = "application/octet-stream";
-        }
-
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_TYPE, contentType)
-                .body(file);
+        archivoEstaticoService.servir(filename, request, response);
     }
 }
\ No newline at end of file
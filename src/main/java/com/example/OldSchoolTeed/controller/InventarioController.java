@@ -5,9 +5,11 @@ import com.example.OldSchoolTeed.dto.InventarioUpdateRequest;
 import com.example.OldSchoolTeed.service.InventarioService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -36,6 +38,13 @@ public class InventarioController {
         return ResponseEntity.ok(inventarioService.getTodoElInventario());
     }
 
+    @GetMapping("/all/stream")
+    public ResponseEntity<StreamingResponseBody> streamTodoElInventario() {
+        log.info("Admin: GET /inventario/all/stream");
+        StreamingResponseBody body = inventarioService::streamTodoElInventario;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
     @GetMapping("/producto/{productoId}")
     public ResponseEntity<InventarioResponse> obtenerInventarioPorProducto(@PathVariable Integer productoId) {
         log.info("Admin: GET /inventario/producto/{}", productoId);
@@ -1,21 +1,33 @@
 package com.example.OldSchoolTeed.controller;
 
+import com.example.OldSchoolTeed.dto.BusquedaProductosResponse;
+import com.example.OldSchoolTeed.dto.FacetasProductosResponse;
+import com.example.OldSchoolTeed.dto.ImportacionProductosResponse;
+import com.example.OldSchoolTeed.dto.ProductoFiltroRequest;
+import com.example.OldSchoolTeed.dto.ProductoPaginaResponse;
 import com.example.OldSchoolTeed.dto.ProductoRequest;
 import com.example.OldSchoolTeed.dto.ProductoResponse;
+import com.example.OldSchoolTeed.service.BusquedaProductoService;
+import com.example.OldSchoolTeed.service.CatalogoVersionService;
+import com.example.OldSchoolTeed.service.FacetasProductoService;
 import com.example.OldSchoolTeed.service.ProductoService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @CrossOrigin(origins = "http://localhost:4200")
@@ -23,9 +35,17 @@ import java.util.List;
 public class ProductoController {
 
     private final ProductoService productoService;
+    private final CatalogoVersionService catalogoVersionService;
+    private final BusquedaProductoService busquedaProductoService;
+    private final FacetasProductoService facetasProductoService;
 
-    public ProductoController(ProductoService productoService) {
+    public ProductoController(ProductoService productoService, CatalogoVersionService catalogoVersionService,
+                              BusquedaProductoService busquedaProductoService,
+                              FacetasProductoService facetasProductoService) {
         this.productoService = productoService;
+        this.catalogoVersionService = catalogoVersionService;
+        this.busquedaProductoService = busquedaProductoService;
+        this.facetasProductoService = facetasProductoService;
     }
 
 
@@ -37,22 +57,80 @@ public class ProductoController {
     }
 
     //  ENDPOINTS PÚBLICOS (/productos/)
+    // GET condicionales: ETag/Last-Modified = versión del catálogo (CatalogoVersionService)
     @GetMapping("/productos")
-    public ResponseEntity<List<ProductoResponse>> getAllProductosActivos() {
+    public ResponseEntity<List<ProductoResponse>> getAllProductosActivos(WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogoVersionService.etag(), catalogoVersionService.ultimaModificacion())) {
+            return null; // 304: el catálogo no cambió desde la versión que tiene el cliente
+        }
         log.info("GET /productos -> Obteniendo productos activos");
-        return ResponseEntity.ok(productoService.getAllProductosActivos());
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(productoService.getAllProductosActivos());
+    }
+
+    // Listado paginado por cursor: /productos/paginado?categoria=...&talla=M&orden=precio_asc&cursor=...
+    @GetMapping("/productos/paginado")
+    public ResponseEntity<ProductoPaginaResponse> getProductosPaginados(@Valid ProductoFiltroRequest filtro, WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogoVersionService.etag(), catalogoVersionService.ultimaModificacion())) {
+            return null;
+        }
+        log.info("GET /productos/paginado -> filtro: {}", filtro);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(productoService.getProductosPaginados(filtro));
+    }
+
+    // Búsqueda de texto en memoria: /productos/buscar?q=camiseta peru&page=0&size=20
+    @GetMapping("/productos/buscar")
+    public ResponseEntity<BusquedaProductosResponse> buscarProductos(@RequestParam("q") String q,
+                                                                     @RequestParam(defaultValue = "0") int page,
+                                                                     @RequestParam(defaultValue = "20") int size,
+                                                                     WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogoVersionService.etag(), catalogoVersionService.ultimaModificacion())) {
+            return null;
+        }
+        log.info("GET /productos/buscar -> q: '{}', page: {}, size: {}", q, page, size);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(busquedaProductoService.buscar(q, page, size));
+    }
+
+    // Filtros con conteos por faceta: /productos/facetas?categoria=Retro&talla=M&talla=L&precio=50-100&enStock=true
+    @GetMapping("/productos/facetas")
+    public ResponseEntity<FacetasProductosResponse> getProductosFacetados(
+            @RequestParam(required = false) List<String> categoria,
+            @RequestParam(required = false) List<String> talla,
+            @RequestParam(required = false) List<String> precio,
+            @RequestParam(required = false) List<String> promocion,
+            @RequestParam(required = false) Boolean enStock,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "24") int size,
+            WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogoVersionService.etag(), catalogoVersionService.ultimaModificacion())) {
+            return null;
+        }
+        Map<String, List<String>> seleccion = new HashMap<>();
+        if (categoria != null) seleccion.put(FacetasProductoService.CATEGORIA, categoria);
+        if (talla != null) seleccion.put(FacetasProductoService.TALLA, talla.stream().map(String::toUpperCase).toList());
+        if (precio != null) seleccion.put(FacetasProductoService.PRECIO, precio);
+        if (promocion != null) seleccion.put(FacetasProductoService.PROMOCION, promocion);
+        if (enStock != null) seleccion.put(FacetasProductoService.EN_STOCK, List.of(enStock.toString()));
+        log.info("GET /productos/facetas -> selección: {}", seleccion);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache())
+                .body(facetasProductoService.filtrar(seleccion, page, size));
     }
 
     @GetMapping("/productos/{id}")
-    public ResponseEntity<ProductoResponse> getProductoById(@PathVariable Integer id) {
+    public ResponseEntity<ProductoResponse> getProductoById(@PathVariable Integer id, WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogoVersionService.etag(), catalogoVersionService.ultimaModificacion())) {
+            return null;
+        }
         log.info("GET /productos/{} -> Obteniendo producto por ID", id);
-        return ResponseEntity.ok(productoService.getProductoById(id));
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(productoService.getProductoById(id));
     }
 
     @GetMapping("/productos/categoria/{nombreCategoria}")
-    public ResponseEntity<List<ProductoResponse>> getProductosByCategoria(@PathVariable String nombreCategoria) {
+    public ResponseEntity<List<ProductoResponse>> getProductosByCategoria(@PathVariable String nombreCategoria, WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogoVersionService.etag(), catalogoVersionService.ultimaModificacion())) {
+            return null;
+        }
         log.info("GET /productos/categoria/{} -> Obteniendo productos por categoría", nombreCategoria);
-        return ResponseEntity.ok(productoService.getProductosByCategoria(nombreCategoria));
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(productoService.getProductosByCategoria(nombreCategoria));
     }
 
     //  ENDPOINTS DE ADMINISTRADOR (/admin/productos/**)
@@ -62,6 +140,20 @@ public class ProductoController {
         return ResponseEntity.ok(productoService.getAllProductosIncludingInactive());
     }
 
+    // Misma lista escrita por lotes: el heap no crece con el tamaño del catálogo
+    @GetMapping("/admin/productos/all/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllProductosAdmin() {
+        log.info("Admin: GET /admin/productos/all/stream -> Enviando productos en streaming");
+        StreamingResponseBody body = productoService::streamAllProductosIncludingInactive;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @GetMapping("/admin/productos/paginado")
+    public ResponseEntity<ProductoPaginaResponse> getProductosPaginadosAdmin(@Valid ProductoFiltroRequest filtro) {
+        log.info("Admin: GET /admin/productos/paginado -> filtro: {}", filtro);
+        return ResponseEntity.ok(productoService.getProductosPaginadosAdmin(filtro));
+    }
+
     @PostMapping("/admin/productos")
     public ResponseEntity<ProductoResponse> createProductoAdmin(@Valid @RequestBody ProductoRequest request) {
         log.info("Admin: POST /admin/productos -> Creando producto: {}", request.getNombre());
@@ -127,6 +219,18 @@ public class ProductoController {
         return ResponseEntity.ok(response);
     }
 
+    // Varias imágenes en una sola petición (campo "files" repetido)
+    @PostMapping(value = "/admin/productos/{id}/galeria/lote", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ProductoResponse> uploadGalleryImages(
+            @PathVariable Integer id,
+            @RequestParam("files") List<MultipartFile> files) {
+
+        log.info("Admin: POST /admin/productos/{}/galeria/lote -> {} imágenes", id, files.size());
+        ProductoResponse response = productoService.uploadGalleryImages(id, files);
+        log.info("Admin: Lote de imágenes agregado a galería de producto ID {}", id);
+        return ResponseEntity.ok(response);
+    }
+
     @DeleteMapping("/admin/productos/{id}/galeria/{imagenId}")
     public ResponseEntity<Void> deleteGalleryImage(
             @PathVariable Integer id,
@@ -138,12 +242,20 @@ public class ProductoController {
         return ResponseEntity.noContent().build();
     }
 
-    //  EXPORTAR EXCEL
+    //  IMPORTAR (XLSX / CSV)
+    @PostMapping(value = "/admin/productos/importar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportacionProductosResponse> importarProductos(
+            @RequestParam("file") MultipartFile file) throws IOException {
+        log.info("Admin: POST /admin/productos/importar -> Archivo: {} ({} bytes)", file.getOriginalFilename(), file.getSize());
+        return ResponseEntity.ok(productoService.importarProductos(file));
+    }
+
+    //  EXPORTAR EXCEL (se genera en un hilo asíncrono y se escribe directo a la respuesta)
     @GetMapping("/admin/productos/exportar-excel")
-    public ResponseEntity<Resource> exportProductosToExcel() throws IOException {
+    public ResponseEntity<StreamingResponseBody> exportProductosToExcel() {
         log.info("Admin: GET /admin/productos/exportar-excel -> Solicitud de exportación");
 
-        Resource file = productoService.exportProductosToExcel();
+        StreamingResponseBody file = productoService::exportProductosToExcel;
         String filename = "productos_oldschooltees_"
                 + LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"))
                 + ".xlsx";
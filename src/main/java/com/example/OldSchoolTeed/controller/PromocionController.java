@@ -2,12 +2,15 @@ package com.example.OldSchoolTeed.controller;
 
 import com.example.OldSchoolTeed.dto.PromocionRequest;
 import com.example.OldSchoolTeed.dto.PromocionResponse;
+import com.example.OldSchoolTeed.service.CatalogoVersionService;
 import com.example.OldSchoolTeed.service.PromocionService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -16,23 +19,31 @@ import java.util.List;
 public class PromocionController {
 
     private final PromocionService promocionService;
+    private final CatalogoVersionService catalogoVersionService;
 
-    public PromocionController(PromocionService promocionService) {
+    public PromocionController(PromocionService promocionService, CatalogoVersionService catalogoVersionService) {
         this.promocionService = promocionService;
+        this.catalogoVersionService = catalogoVersionService;
     }
 
     //  Endpoints Públicos
 
     @GetMapping("/promociones")
-    public ResponseEntity<List<PromocionResponse>> obtenerTodasLasPromociones() {
+    public ResponseEntity<List<PromocionResponse>> obtenerTodasLasPromociones(WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogoVersionService.etag(), catalogoVersionService.ultimaModificacion())) {
+            return null; // 304: el catálogo no cambió desde la versión que tiene el cliente
+        }
         log.info("GET /promociones -> Listando todas (público)");
-        return ResponseEntity.ok(promocionService.getAllPromociones());
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(promocionService.getAllPromociones());
     }
 
     @GetMapping("/promociones/{id}")
-    public ResponseEntity<PromocionResponse> obtenerPromocionPorId(@PathVariable Integer id) {
+    public ResponseEntity<PromocionResponse> obtenerPromocionPorId(@PathVariable Integer id, WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogoVersionService.etag(), catalogoVersionService.ultimaModificacion())) {
+            return null;
+        }
         log.info("GET /promociones/{} (público)", id);
-        return ResponseEntity.ok(promocionService.getPromocionById(id));
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(promocionService.getPromocionById(id));
     }
 
     //  Endpoints de Administrador
@@ -0,0 +1,34 @@
+package com.example.OldSchoolTeed.controller;
+
+import com.example.OldSchoolTeed.service.ArchivoEstaticoService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * Imágenes públicas (URLs guardadas en Producto / ImagenProducto).
+ * Reemplaza al resource handler de WebConfig para servir con sendfile, rangos y ETag.
+ */
+@RestController
+@RequestMapping("/uploads")
+@Slf4j
+public class UploadsController {
+
+    private final ArchivoEstaticoService archivoEstaticoService;
+
+    public UploadsController(ArchivoEstaticoService archivoEstaticoService) {
+        this.archivoEstaticoService = archivoEstaticoService;
+    }
+
+    @GetMapping("/{*ruta}")
+    public void servir(@PathVariable String ruta, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.trace("GET /uploads{}", ruta);
+        archivoEstaticoService.servir(ruta.startsWith("/") ? ruta.substring(1) : ruta, request, response);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.OldSchoolTeed.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BusquedaProductosResponse {
+    private String consulta;
+    private long total;
+    private int page;
+    private int size;
+    private List<ProductoResponse> items;
+}
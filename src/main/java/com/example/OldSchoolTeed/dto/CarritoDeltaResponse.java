@@ -0,0 +1,26 @@
+package com.example.OldSchoolTeed.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Respuesta liviana de una mutación del carrito (?delta=true): solo la línea afectada y los totales.
+ * Si 'version' es menor que la última recibida, la respuesta llegó fuera de orden y se ignora.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarritoDeltaResponse {
+    private Integer carritoId;
+    private Long version;
+    private BigDecimal total;
+    private Integer cantidadItems;
+    // Línea agregada o modificada (null si se eliminó)
+    private DetalleCarritoResponse item;
+    private Integer detalleEliminadoId;
+}
@@ -0,0 +1,49 @@
+package com.example.OldSchoolTeed.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Varias operaciones sobre el carrito aplicadas en orden y de forma atómica (todas o ninguna).
+ * - AGREGAR: usa 'item' (mismos datos que /carrito/agregar, con personalización y parche).
+ * - ACTUALIZAR: usa 'detalleCarritoId' y 'cantidad'.
+ * - ELIMINAR: usa 'detalleCarritoId'.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarritoLoteRequest {
+
+    @NotEmpty(message = "Debe enviar al menos una operación")
+    @Size(max = 50, message = "Máximo 50 operaciones por lote")
+    @Valid
+    private List<Operacion> operaciones;
+
+    public enum TipoOperacion {
+        AGREGAR, ACTUALIZAR, ELIMINAR
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Operacion {
+        @NotNull(message = "El tipo de operación no puede ser nulo")
+        private TipoOperacion tipo;
+
+        @Valid
+        private AddItemRequest item;
+
+        private Integer detalleCarritoId;
+
+        @Min(value = 1, message = "La cantidad debe ser al menos 1")
+        private Integer cantidad;
+    }
+}
@@ -17,4 +17,5 @@ public class CarritoResponse {
     private Integer usuarioId;
     private List<DetalleCarritoResponse> items;
     private BigDecimal total;
+    private Long version;
 }
@@ -0,0 +1,33 @@
+package com.example.OldSchoolTeed.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+// Página de productos filtrados + conteos de cada valor de faceta para la barra lateral
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetasProductosResponse {
+    private long total;
+    private int page;
+    private int size;
+    private List<ProductoResponse> items;
+    // faceta -> valores (categoria, talla, precio, promocion, enStock)
+    private Map<String, List<ValorFaceta>> facetas;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ValorFaceta {
+        private String valor;
+        // Productos que habría al elegir este valor manteniendo el resto de filtros
+        private int cantidad;
+        private boolean seleccionado;
+    }
+}
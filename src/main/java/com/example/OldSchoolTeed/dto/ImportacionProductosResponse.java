@@ -0,0 +1,30 @@
+package com.example.OldSchoolTeed.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Resultado de una importación masiva: las filas válidas se guardan y las inválidas se reportan
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportacionProductosResponse {
+    private int filasLeidas;
+    private int productosCreados;
+    private int filasConError;
+    private long duracionMs;
+    // Se corta en un máximo para no devolver respuestas enormes
+    private List<ErrorFila> errores;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ErrorFila {
+        private int fila;
+        private String mensaje;
+    }
+}
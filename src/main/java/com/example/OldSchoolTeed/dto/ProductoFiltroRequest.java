@@ -0,0 +1,44 @@
+package com.example.OldSchoolTeed.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Parámetros de consulta del listado paginado (?categoria=...&talla=...&cursor=...)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductoFiltroRequest {
+
+    private String categoria;
+
+    private String talla;
+
+    @PositiveOrZero(message = "El precio mínimo no puede ser negativo")
+    private BigDecimal precioMin;
+
+    @PositiveOrZero(message = "El precio máximo no puede ser negativo")
+    private BigDecimal precioMax;
+
+    private Boolean enStock;
+
+    // Solo se respeta en el listado de administrador; el público siempre filtra activos
+    private Boolean activo;
+
+    @Pattern(regexp = "id|precio_asc|precio_desc|nombre_asc|nombre_desc",
+            message = "Orden no válido. Use: id, precio_asc, precio_desc, nombre_asc, nombre_desc")
+    private String orden = "id";
+
+    // Cursor opaco devuelto en la página anterior (siguienteCursor)
+    private String cursor;
+
+    @Min(value = 1, message = "El límite debe ser al menos 1")
+    @Max(value = 100, message = "El límite no puede superar 100")
+    private Integer limite = 24;
+}
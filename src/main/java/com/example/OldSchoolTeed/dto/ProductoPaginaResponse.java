@@ -0,0 +1,21 @@
+package com.example.OldSchoolTeed.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductoPaginaResponse {
+    private List<ProductoResponse> items;
+
+    // null cuando no hay más resultados
+    private String siguienteCursor;
+    private boolean hayMas;
+    private int limite;
+}
@@ -20,6 +20,10 @@ public class ProductoResponse {
     private Integer stock;
 
     private String imageUrl;
+    // Variantes 150px / 400px / 1000px de imageUrl (null mientras se generan)
+    private String imageThumbUrl;
+    private String imageCardUrl;
+    private String imageDetailUrl;
 
 
     private List<ImagenDto> galeriaImagenes;
@@ -34,6 +38,9 @@ public class ProductoResponse {
     public static class ImagenDto {
         private Integer id;
         private String url;
+        private String thumbUrl;
+        private String cardUrl;
+        private String detailUrl;
     }
 
     @Data
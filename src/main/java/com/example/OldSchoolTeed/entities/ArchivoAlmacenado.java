@@ -0,0 +1,44 @@
+package com.example.OldSchoolTeed.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Archivo subido guardado por contenido (ab/cd/<sha256>.<ext>).
+ * 'referencias' cuenta cuántas URLs de Producto / ImagenProducto apuntan a él;
+ * un mismo contenido se escribe una sola vez aunque se suba muchas veces.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "archivo_almacenado")
+public class ArchivoAlmacenado {
+
+    // Ruta relativa dentro de file.upload-dir
+    @Id
+    @Column(name = "ruta", length = 200)
+    private String ruta;
+
+    @Column(name = "sha256", nullable = false, length = 64)
+    private String sha256;
+
+    @Column(name = "tamano_bytes", nullable = false)
+    private Long tamanoBytes;
+
+    @Column(name = "referencias", nullable = false)
+    private Integer referencias;
+
+    @Column(name = "creado_en", nullable = false)
+    private LocalDateTime creadoEn;
+
+    // Última vez que perdió una referencia (para el periodo de gracia antes de borrarlo)
+    @Column(name = "liberado_en")
+    private LocalDateTime liberadoEn;
+}
@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList; // Importar ArrayList
 import java.util.List;
@@ -30,6 +31,14 @@ public class Carrito {
     private LocalDateTime fechaCreacion;
 
 
+    // Total mantenido de forma incremental en cada mutación (null en carritos anteriores a este campo)
+    @Column(name = "total", precision = 10, scale = 2)
+    private BigDecimal total;
+
+    // Avanza en cada mutación; el cliente lo usa para descartar respuestas delta fuera de orden
+    @Column(name = "version")
+    private Long version;
+
     @OneToMany(mappedBy = "carrito", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<DetalleCarrito> detallesCarrito = new ArrayList<>(); 
 
@@ -16,7 +16,8 @@ import java.math.BigDecimal;
 @Table(name = "detalle_carrito")
 public class DetalleCarrito {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "detalle_carrito_seq")
+    @SequenceGenerator(name = "detalle_carrito_seq", sequenceName = "detalle_carrito_seq", allocationSize = 50)
     @Column(name = "id_detalle_carrito")
     private Integer idDetalleCarrito;
 
@@ -15,7 +15,8 @@ import java.math.BigDecimal;
 @Table(name = "detalle_pedido")
 public class DetallePedido {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "detalle_pedido_seq")
+    @SequenceGenerator(name = "detalle_pedido_seq", sequenceName = "detalle_pedido_seq", allocationSize = 50)
     @Column(name = "id_detalle_pedido")
     private Integer idDetallePedido;
 
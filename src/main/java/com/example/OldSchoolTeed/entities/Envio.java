@@ -15,7 +15,8 @@ import java.time.LocalDate;
 @Table(name = "envio")
 public class Envio {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "envio_seq")
+    @SequenceGenerator(name = "envio_seq", sequenceName = "envio_seq", allocationSize = 50)
     @Column(name = "id_envio")
     private Integer idEnvio;
 
@@ -15,12 +15,23 @@ import lombok.Setter;
 public class ImagenProducto {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "imagen_producto_seq")
+    @SequenceGenerator(name = "imagen_producto_seq", sequenceName = "imagen_producto_seq", allocationSize = 50)
     private Integer id;
 
     @Column(name = "url", nullable = false)
     private String url;
 
+    // Variantes redimensionadas (null mientras se generan)
+    @Column(name = "url_thumb")
+    private String urlThumb;
+
+    @Column(name = "url_card")
+    private String urlCard;
+
+    @Column(name = "url_detail")
+    private String urlDetail;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "producto_id")
     private Producto producto;
@@ -14,7 +14,8 @@ import java.time.LocalDateTime;
 @Table(name = "inventario")
 public class Inventario {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventario_seq")
+    @SequenceGenerator(name = "inventario_seq", sequenceName = "inventario_seq", allocationSize = 50)
     @Column(name = "id_inventario")
     private Integer idInventario;
 
@@ -25,6 +26,11 @@ public class Inventario {
     @Column(name = "stock", nullable = false)
     private Integer stock;
 
+    // Bloqueo optimista para las escrituras vía entidad; el descuento del checkout (SQL) también lo incrementa
+    @Version
+    @Column(name = "version", columnDefinition = "bigint default 0")
+    private Long version;
+
     @Column(name = "ultima_actualizacion")
     @Temporal(TemporalType.TIMESTAMP)
     private LocalDateTime ultimaActualizacion;
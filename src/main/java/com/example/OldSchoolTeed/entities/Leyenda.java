@@ -15,7 +15,8 @@ import lombok.Setter;
 public class Leyenda {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "leyenda_seq")
+    @SequenceGenerator(name = "leyenda_seq", sequenceName = "leyenda_seq", allocationSize = 50)
     private Integer id;
 
     @Column(nullable = false)
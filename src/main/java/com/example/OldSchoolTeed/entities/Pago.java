@@ -16,7 +16,8 @@ import java.time.LocalDateTime;
 @Table(name = "pago")
 public class Pago {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pago_seq")
+    @SequenceGenerator(name = "pago_seq", sequenceName = "pago_seq", allocationSize = 50)
     @Column(name = "id_pago")
     private Integer idPago;
 
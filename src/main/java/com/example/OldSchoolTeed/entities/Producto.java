@@ -45,6 +45,16 @@ public class Producto {
     @Column(name = "color_dorsal", length = 20)
     private String colorDorsal = "#000000";
 
+    // Precio con la mejor promoción vigente, lo materializa PrecioVigenteService
+    @Column(name = "precio_efectivo", precision = 10, scale = 2)
+    private BigDecimal precioEfectivo;
+
+    @Column(name = "descuento_vigente", precision = 5, scale = 2)
+    private BigDecimal descuentoVigente;
+
+    @Column(name = "promocion_vigente", length = 255)
+    private String promocionVigente;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_categoria")
     private Categoria categoria;
@@ -60,6 +70,16 @@ public class Producto {
     @Column(name = "image_url", length = 500)
     private String imageUrl;
 
+    // Variantes redimensionadas de imageUrl, las genera ImagenVarianteService en segundo plano
+    @Column(name = "image_thumb_url", length = 500)
+    private String imageThumbUrl;
+
+    @Column(name = "image_card_url", length = 500)
+    private String imageCardUrl;
+
+    @Column(name = "image_detail_url", length = 500)
+    private String imageDetailUrl;
+
     @OneToMany(mappedBy = "producto", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<ImagenProducto> imagenes = new ArrayList<>();
 
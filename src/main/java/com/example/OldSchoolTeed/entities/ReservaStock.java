@@ -0,0 +1,46 @@
+package com.example.OldSchoolTeed.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reserva temporal de stock de un carrito sobre un producto.
+ * Una fila por (carrito, producto) con la cantidad total de ese producto en el carrito;
+ * deja de contar al pasar 'expiraEn' aunque el barrido todavía no la haya borrado.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "reserva_stock",
+        uniqueConstraints = @UniqueConstraint(name = "uk_reserva_carrito_producto", columnNames = {"id_carrito", "id_producto"}),
+        indexes = {
+                @Index(name = "idx_reserva_producto_expira", columnList = "id_producto, expira_en"),
+                @Index(name = "idx_reserva_expira", columnList = "expira_en")
+        })
+public class ReservaStock {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_reserva")
+    private Long idReserva;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_carrito", referencedColumnName = "id_carrito", nullable = false)
+    private Carrito carrito;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_producto", referencedColumnName = "id_producto", nullable = false)
+    private Producto producto;
+
+    @Column(name = "cantidad", nullable = false)
+    private Integer cantidad;
+
+    @Column(name = "expira_en", nullable = false)
+    private LocalDateTime expiraEn;
+}
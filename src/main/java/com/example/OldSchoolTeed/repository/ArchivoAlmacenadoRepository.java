@@ -0,0 +1,36 @@
+package com.example.OldSchoolTeed.repository;
+
+import com.example.OldSchoolTeed.entities.ArchivoAlmacenado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface ArchivoAlmacenadoRepository extends JpaRepository<ArchivoAlmacenado, String> {
+
+    // Alta idempotente: si el contenido ya existía no se toca la fila
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO archivo_almacenado (ruta, sha256, tamano_bytes, referencias, creado_en) " +
+            "VALUES (:ruta, :sha256, :tamano, 0, now()) ON CONFLICT (ruta) DO NOTHING", nativeQuery = true)
+    int registrar(@Param("ruta") String ruta, @Param("sha256") String sha256, @Param("tamano") long tamano);
+
+    // Los contadores se actualizan en SQL para no perder incrementos entre subidas concurrentes
+    @Modifying
+    @Transactional
+    @Query("UPDATE ArchivoAlmacenado a SET a.referencias = a.referencias + 1 WHERE a.ruta = :ruta")
+    int incrementarReferencias(@Param("ruta") String ruta);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ArchivoAlmacenado a SET a.referencias = a.referencias - 1, a.liberadoEn = CURRENT_TIMESTAMP " +
+            "WHERE a.ruta = :ruta AND a.referencias > 0")
+    int decrementarReferencias(@Param("ruta") String ruta);
+
+    // Solo lo borra si nadie lo referencia: una subida concurrente que lo reutilizó lo conserva
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ArchivoAlmacenado a WHERE a.ruta = :ruta AND a.referencias = 0")
+    int borrarSinReferencias(@Param("ruta") String ruta);
+}
@@ -2,7 +2,9 @@ package com.example.OldSchoolTeed.repository;
 
 import com.example.OldSchoolTeed.entities.Carrito;
 import com.example.OldSchoolTeed.entities.Usuario;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query; // Importar Query
 import org.springframework.data.repository.query.Param; // Importar Param
 import java.util.Optional;
@@ -12,6 +14,11 @@ public interface CarritoRepository extends JpaRepository<Carrito, Integer> {
     @Query("SELECT c FROM Carrito c LEFT JOIN FETCH c.detallesCarrito dc LEFT JOIN FETCH dc.producto WHERE c.usuario = :usuario")
     Optional<Carrito> findByUsuarioWithDetails(@Param("usuario") Usuario usuario);
 
+    // Bloquea la fila del carrito (FOR UPDATE) para serializar las mutaciones del mismo usuario
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Carrito c WHERE c.usuario = :usuario")
+    Optional<Carrito> findByUsuarioForUpdate(@Param("usuario") Usuario usuario);
+
     // Método original (puede causar N+1 queries si detallesCarrito es LAZY)
     Optional<Carrito> findByUsuario(Usuario usuario);
 }
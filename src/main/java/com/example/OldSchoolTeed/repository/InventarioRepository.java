@@ -2,11 +2,47 @@ package com.example.OldSchoolTeed.repository;
 
 import com.example.OldSchoolTeed.entities.Inventario;
 import com.example.OldSchoolTeed.entities.Producto;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface InventarioRepository extends JpaRepository<Inventario, Integer> {
     //metodo para buscar el inventario de un producto
     Optional<Inventario> findByProducto(Producto producto);
+
+    // Stock de varios productos a la vez: cada fila es [idProducto, stock]
+    @Query("SELECT i.producto.idProducto, i.stock FROM Inventario i WHERE i.producto.idProducto IN :productoIds")
+    List<Object[]> findStockByProductoIds(@Param("productoIds") Collection<Integer> productoIds);
+
+    // Bloquea (FOR UPDATE) las filas de inventario siempre en orden de producto para evitar deadlocks
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventario i JOIN FETCH i.producto p WHERE p.idProducto IN :productoIds ORDER BY p.idProducto")
+    List<Inventario> findByProductoIdsForUpdate(@Param("productoIds") Collection<Integer> productoIds);
+
+    // Checkout: bloquea solo las filas (sin cargar entidades) en orden de producto, así las transacciones
+    // concurrentes esperan siempre en el mismo orden y no hay deadlocks
+    @Query(value = "SELECT id_producto FROM inventario WHERE id_producto IN (:productoIds) ORDER BY id_producto FOR UPDATE",
+            nativeQuery = true)
+    List<Integer> bloquearPorProductoIds(@Param("productoIds") Collection<Integer> productoIds);
+
+    // Descuento condicional de todas las líneas en una sola sentencia: una fila solo baja si le alcanza el stock.
+    // Devuelve cuántas filas se actualizaron (menos que productoIds.length = a alguna no le alcanzó)
+    @Modifying
+    @Query(value = "UPDATE inventario i SET stock = i.stock - d.cantidad, version = COALESCE(i.version, 0) + 1, " +
+            "ultima_actualizacion = now() " +
+            "FROM unnest(CAST(:productoIds AS integer[]), CAST(:cantidades AS integer[])) AS d(id_producto, cantidad) " +
+            "WHERE i.id_producto = d.id_producto AND i.stock >= d.cantidad", nativeQuery = true)
+    int descontarStock(@Param("productoIds") Integer[] productoIds, @Param("cantidades") Integer[] cantidades);
+
+    // Lote siguiente para recorridos por keyset (streaming)
+    @Query("SELECT i FROM Inventario i JOIN FETCH i.producto WHERE i.idInventario > :ultimoId ORDER BY i.idInventario")
+    List<Inventario> findLoteConProducto(@Param("ultimoId") Integer ultimoId, Pageable pageable);
 }
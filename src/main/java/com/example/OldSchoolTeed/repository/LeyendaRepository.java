@@ -0,0 +1,16 @@
+package com.example.OldSchoolTeed.repository;
+
+import com.example.OldSchoolTeed.entities.Leyenda;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface LeyendaRepository extends JpaRepository<Leyenda, Integer> {
+
+    // Leyendas de varios productos en una sola consulta (evita N+1 en listados)
+    @Query("SELECT l FROM Leyenda l WHERE l.producto.idProducto IN :productoIds ORDER BY l.id")
+    List<Leyenda> findByProductoIds(@Param("productoIds") Collection<Integer> productoIds);
+}
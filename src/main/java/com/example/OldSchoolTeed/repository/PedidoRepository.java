@@ -2,13 +2,16 @@ package com.example.OldSchoolTeed.repository;
 
 import com.example.OldSchoolTeed.entities.Pedido;
 import com.example.OldSchoolTeed.entities.Usuario;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface PedidoRepository extends JpaRepository<Pedido, Integer> {
@@ -24,4 +27,14 @@ public interface PedidoRepository extends JpaRepository<Pedido, Integer> {
     @Query("SELECT SUM(p.total) FROM Pedido p WHERE p.fecha BETWEEN :inicio AND :fin AND p.estado IN ('PAGADO', 'ENVIADO', 'ENTREGADO')")
     BigDecimal sumarVentasEnRango(LocalDateTime inicio, LocalDateTime fin);
 
+    // Recorrido por keyset: primero los ids del lote (paginables), luego el grafo completo
+    @Query("SELECT p.idPedido FROM Pedido p WHERE p.idPedido > :ultimoId ORDER BY p.idPedido")
+    List<Integer> findIdsDesde(@Param("ultimoId") Integer ultimoId, Pageable pageable);
+
+    @Query("SELECT DISTINCT p FROM Pedido p JOIN FETCH p.usuario " +
+            "LEFT JOIN FETCH p.detallesPedido d LEFT JOIN FETCH d.producto " +
+            "LEFT JOIN FETCH p.pago LEFT JOIN FETCH p.envio " +
+            "WHERE p.idPedido IN :ids ORDER BY p.idPedido")
+    List<Pedido> findConDetallesByIds(@Param("ids") Collection<Integer> ids);
+
 }
\ No newline at end of file
@@ -4,8 +4,11 @@ import com.example.OldSchoolTeed.entities.Producto;
 import com.example.OldSchoolTeed.entities.ProductoProveedor;
 import com.example.OldSchoolTeed.entities.Proveedor;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,4 +26,9 @@ public interface ProductoProveedorRepository extends JpaRepository<ProductoProve
 
 
     Optional<ProductoProveedor> findByProductoAndProveedor(Producto producto, Proveedor proveedor);
+
+    // Costos de varios productos a la vez: cada fila es [idProducto, razonSocial, precioCosto]
+    @Query("SELECT pp.producto.idProducto, pv.razonSocial, pp.precioCosto FROM ProductoProveedor pp " +
+            "JOIN pp.proveedor pv WHERE pp.producto.idProducto IN :productoIds")
+    List<Object[]> findCostosByProductoIds(@Param("productoIds") Collection<Integer> productoIds);
 }
\ No newline at end of file
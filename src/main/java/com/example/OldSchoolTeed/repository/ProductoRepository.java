@@ -1,15 +1,44 @@
 package com.example.OldSchoolTeed.repository;
 
 import com.example.OldSchoolTeed.entities.Producto;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 
-public interface ProductoRepository extends JpaRepository<Producto, Integer> {
+public interface ProductoRepository extends JpaRepository<Producto, Integer>, JpaSpecificationExecutor<Producto> {
     // para buscar x nombre
     List<Producto> findByCategoriaNombre(String nombreCategoria);
 
     //metodo para buscar los productos activosss
     List<Producto> findByActivoTrue();
+
+    // Variantes para listados: traen la categoría en el mismo SELECT
+    @Query("SELECT p FROM Producto p LEFT JOIN FETCH p.categoria WHERE p.activo = true ORDER BY p.idProducto")
+    List<Producto> findActivosConCategoria();
+
+    @Query("SELECT p FROM Producto p LEFT JOIN FETCH p.categoria ORDER BY p.idProducto")
+    List<Producto> findTodosConCategoria();
+
+    @Query("SELECT p FROM Producto p JOIN FETCH p.categoria c WHERE c.nombre = :nombreCategoria AND p.activo = true ORDER BY p.idProducto")
+    List<Producto> findActivosByCategoriaNombre(@Param("nombreCategoria") String nombreCategoria);
+
+    @Query("SELECT p FROM Producto p LEFT JOIN FETCH p.categoria WHERE p.idProducto IN :ids ORDER BY p.idProducto")
+    List<Producto> findByIdsConCategoria(@Param("ids") Collection<Integer> ids);
+
+    // Lote siguiente para recorridos por keyset (streaming / exportaciones)
+    @Query("SELECT p FROM Producto p LEFT JOIN FETCH p.categoria WHERE p.idProducto > :ultimoId ORDER BY p.idProducto")
+    List<Producto> findLoteConCategoria(@Param("ultimoId") Integer ultimoId, Pageable pageable);
+
+    // Solo las columnas de precio (sin entidades): cada fila es [idProducto, precio, precioEfectivo, descuentoVigente]
+    @Query("SELECT p.idProducto, p.precio, p.precioEfectivo, p.descuentoVigente FROM Producto p WHERE p.idProducto IN :ids")
+    List<Object[]> findPreciosByIds(@Param("ids") Collection<Integer> ids);
+
+    @Query("SELECT p.idProducto FROM Producto p ORDER BY p.idProducto")
+    List<Integer> findAllIds();
 }
@@ -0,0 +1,97 @@
+package com.example.OldSchoolTeed.repository;
+
+import com.example.OldSchoolTeed.entities.Inventario;
+import com.example.OldSchoolTeed.entities.Producto;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+
+// Filtros del listado de productos, se combinan con Specification.allOf(...)
+public final class ProductoSpecifications {
+
+    private ProductoSpecifications() {
+    }
+
+    // Trae la categoría en el mismo SELECT (no aplica a consultas count)
+    public static Specification<Producto> conCategoria() {
+        return (root, query, cb) -> {
+            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+                root.fetch("categoria", JoinType.LEFT);
+            }
+            return null;
+        };
+    }
+
+    public static Specification<Producto> activo(Boolean activo) {
+        return (root, query, cb) -> cb.equal(root.get("activo"), activo);
+    }
+
+    public static Specification<Producto> categoriaNombre(String nombre) {
+        return (root, query, cb) -> cb.equal(root.get("categoria").get("nombre"), nombre);
+    }
+
+    public static Specification<Producto> talla(Producto.Talla talla) {
+        return (root, query, cb) -> cb.equal(root.get("talla"), talla);
+    }
+
+    // El rango se aplica sobre el precio efectivo (con promoción); sin materializar vale el precio base
+    public static Specification<Producto> precioMinimo(BigDecimal min) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(precioVigente(root, cb), min);
+    }
+
+    public static Specification<Producto> precioMaximo(BigDecimal max) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(precioVigente(root, cb), max);
+    }
+
+    // coalesce(precio_efectivo, precio): nunca null, así el orden y el cursor comparan el mismo valor
+    private static Expression<BigDecimal> precioVigente(Root<Producto> root, CriteriaBuilder cb) {
+        return cb.coalesce(root.<BigDecimal>get("precioEfectivo"), root.<BigDecimal>get("precio"));
+    }
+
+    // "precio" = precio vigente; cualquier otro campo se usa tal cual
+    @SuppressWarnings("unchecked")
+    private static <Y> Expression<Y> valorDeOrden(Root<Producto> root, CriteriaBuilder cb, String campo) {
+        return "precio".equals(campo) ? (Expression<Y>) precioVigente(root, cb) : root.get(campo);
+    }
+
+    // ORDER BY (campo, id): la misma expresión que compara despuesDe (no aplica a consultas count)
+    public static Specification<Producto> ordenadoPor(String campo, boolean ascendente) {
+        return (root, query, cb) -> {
+            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+                Order porId = cb.asc(root.get("idProducto"));
+                if (campo == null) {
+                    query.orderBy(porId);
+                } else {
+                    Expression<Object> valor = valorDeOrden(root, cb, campo);
+                    query.orderBy(ascendente ? cb.asc(valor) : cb.desc(valor), porId);
+                }
+            }
+            return null;
+        };
+    }
+
+    public static Specification<Producto> enStock(boolean conStock) {
+        return (root, query, cb) -> {
+            Subquery<Integer> sub = query.subquery(Integer.class);
+            Root<Inventario> inv = sub.from(Inventario.class);
+            sub.select(inv.get("idInventario"))
+                    .where(cb.equal(inv.get("producto"), root), cb.greaterThan(inv.get("stock"), 0));
+            return conStock ? cb.exists(sub) : cb.not(cb.exists(sub));
+        };
+    }
+
+    // Keyset: filas posteriores a (valor, id) según el orden; el id desempata siempre ascendente
+    public static <Y extends Comparable<? super Y>> Specification<Producto> despuesDe(String campo, boolean ascendente,
+                                                                                     Y valor, Integer ultimoId) {
+        return (root, query, cb) -> {
+            Path<Integer> id = root.get("idProducto");
+            if (campo == null) {
+                return cb.greaterThan(id, ultimoId);
+            }
+            Expression<Y> path = valorDeOrden(root, cb, campo);
+            Predicate estricto = ascendente ? cb.greaterThan(path, valor) : cb.lessThan(path, valor);
+            return cb.or(estricto, cb.and(cb.equal(path, valor), cb.greaterThan(id, ultimoId)));
+        };
+    }
+}
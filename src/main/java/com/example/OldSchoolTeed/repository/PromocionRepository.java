@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query; // Importar Query
 import org.springframework.data.repository.query.Param; // Importar Param
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,4 +22,20 @@ public interface PromocionRepository extends JpaRepository<Promocion, Integer> {
 
     @Query("SELECT p FROM Promocion p JOIN p.productos prod WHERE prod.idProducto = :productoId AND p.activa = true AND :now BETWEEN p.fechaInicio AND p.fechaFin")
     List<Promocion> findActivePromocionesForProducto(@Param("productoId") Integer productoId, @Param("now") LocalDateTime now);
+
+    // Todas las promociones asociadas a un grupo de productos: cada fila es [idProducto, Promocion]
+    @Query("SELECT prod.idProducto, p FROM Promocion p JOIN p.productos prod WHERE prod.idProducto IN :productoIds")
+    List<Object[]> findByProductoIds(@Param("productoIds") Collection<Integer> productoIds);
+
+    // Fronteras de ventanas de promoción (para programar el recálculo de precios)
+    @Query("SELECT MIN(p.fechaInicio) FROM Promocion p WHERE p.activa = true AND p.fechaInicio > :now")
+    LocalDateTime findProximoInicio(@Param("now") LocalDateTime now);
+
+    @Query("SELECT MIN(p.fechaFin) FROM Promocion p WHERE p.activa = true AND p.fechaFin >= :now")
+    LocalDateTime findProximoFin(@Param("now") LocalDateTime now);
+
+    // Productos cuyas promociones abren o cierran dentro del intervalo
+    @Query("SELECT DISTINCT prod.idProducto FROM Promocion p JOIN p.productos prod " +
+            "WHERE p.fechaInicio BETWEEN :desde AND :hasta OR p.fechaFin BETWEEN :desde AND :hasta")
+    List<Integer> findProductoIdsConFronteraEntre(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
 }
@@ -0,0 +1,42 @@
+package com.example.OldSchoolTeed.repository;
+
+import com.example.OldSchoolTeed.entities.Carrito;
+import com.example.OldSchoolTeed.entities.ReservaStock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ReservaStockRepository extends JpaRepository<ReservaStock, Long> {
+
+    List<ReservaStock> findByCarrito(Carrito carrito);
+
+    // Unidades reservadas por OTROS carritos y aún vigentes: cada fila es [idProducto, cantidad]
+    @Query("SELECT r.producto.idProducto, SUM(r.cantidad) FROM ReservaStock r " +
+            "WHERE r.producto.idProducto IN :productoIds AND r.expiraEn > :ahora AND r.carrito <> :carrito " +
+            "GROUP BY r.producto.idProducto")
+    List<Object[]> sumVigentesDeOtros(@Param("productoIds") Collection<Integer> productoIds,
+                                      @Param("carrito") Carrito carrito,
+                                      @Param("ahora") LocalDateTime ahora);
+
+    // Cualquier actividad en el carrito extiende todas sus reservas que sigan vivas
+    @Modifying
+    @Query("UPDATE ReservaStock r SET r.expiraEn = :expira WHERE r.carrito = :carrito AND r.expiraEn > :ahora")
+    int renovar(@Param("carrito") Carrito carrito, @Param("ahora") LocalDateTime ahora, @Param("expira") LocalDateTime expira);
+
+    @Modifying
+    @Query("DELETE FROM ReservaStock r WHERE r.carrito = :carrito")
+    int deleteByCarrito(@Param("carrito") Carrito carrito);
+
+    // Barrido por lotes: cada llamada borra como máximo 'lote' reservas vencidas
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM reserva_stock WHERE id_reserva IN " +
+            "(SELECT id_reserva FROM reserva_stock WHERE expira_en <= :ahora LIMIT :lote)", nativeQuery = true)
+    int deleteVencidas(@Param("ahora") LocalDateTime ahora, @Param("lote") int lote);
+}
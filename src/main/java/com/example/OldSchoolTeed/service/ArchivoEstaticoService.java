@@ -0,0 +1,306 @@
+package com.example.OldSchoolTeed.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Entrega de archivos subidos (/uploads/** y /files/uploads/**) sin copiar bytes por el heap:
+ * con Tomcat se usa sendfile (el conector envía el archivo directo desde el kernel) y si no está
+ * disponible, FileChannel.transferTo sobre la salida de la respuesta.
+ * Soporta un único rango (Range / If-Range), ETag fuerte, If-None-Match / If-Modified-Since y
+ * Cache-Control immutable para nombres que nunca se reutilizan (SHA-256 o UUID).
+ * Tipo y tamaño se guardan en un LRU para no hacer stat + probeContentType en cada petición,
+ * y el contenido de los archivos chicos se sirve desde ImagenCacheService.
+ */
+@Service
+public class ArchivoEstaticoService {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchivoEstaticoService.class);
+
+    private static final String SENDFILE_SOPORTADO = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_ARCHIVO = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_INICIO = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FIN = "org.apache.tomcat.sendfile.end";
+
+    private static final String CACHE_INMUTABLE = "public, max-age=31536000, immutable";
+    private static final String CACHE_REVALIDAR = "no-cache";
+
+    private static final Pattern RANGO = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+    private static final Pattern NOMBRE_UUID =
+            Pattern.compile("^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}[^/]*$");
+
+    private static final Map<String, String> TIPOS = Map.of(
+            "jpg", "image/jpeg",
+            "jpeg", "image/jpeg",
+            "png", "image/png",
+            "gif", "image/gif",
+            "webp", "image/webp",
+            "avif", "image/avif",
+            "svg", "image/svg+xml");
+
+    private final StorageService storageService;
+    private final ImagenCacheService imagenCacheService;
+    private final Map<String, Metadatos> metadatos;
+
+    public ArchivoEstaticoService(StorageService storageService,
+                                  ImagenCacheService imagenCacheService,
+                                  @Value("${file.serving.metadatos-max:10000}") int maxMetadatos) {
+        this.storageService = storageService;
+        this.imagenCacheService = imagenCacheService;
+        // LRU por orden de acceso; los nombres son inmutables, solo se invalida al reemplazar/borrar
+        this.metadatos = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Metadatos> eldest) {
+                return size() > maxMetadatos;
+            }
+        };
+    }
+
+    /**
+     * Datos del archivo que hacen falta para responder sin tocar el disco.
+     */
+    static final class Metadatos {
+        final Path ruta;
+        final long tamano;
+        final long ultimaModificacion;
+        final String contentType;
+        final String etag;
+        final boolean inmutable;
+
+        private Metadatos(Path ruta, long tamano, long ultimaModificacion, String contentType, String etag, boolean inmutable) {
+            this.ruta = ruta;
+            this.tamano = tamano;
+            this.ultimaModificacion = ultimaModificacion;
+            this.contentType = contentType;
+            this.etag = etag;
+            this.inmutable = inmutable;
+        }
+    }
+
+    public void servir(String nombre, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Metadatos m;
+        try {
+            m = metadatos(nombre);
+        } catch (NoSuchFileException | IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ETAG, m.etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, m.ultimaModificacion);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, m.inmutable ? CACHE_INMUTABLE : CACHE_REVALIDAR);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (noModificado(request, m)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long inicio = 0;
+        long fin = m.tamano - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && aplicaRango(request, m)) {
+            long[] rango = parsearRango(range, m.tamano);
+            if (rango == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + m.tamano);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (rango.length == 2) {
+                inicio = rango[0];
+                fin = rango[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + inicio + "-" + fin + "/" + m.tamano);
+            }
+        }
+
+        long longitud = fin - inicio + 1;
+        response.setContentType(m.contentType);
+        response.setContentLengthLong(Math.max(longitud, 0));
+        if ("HEAD".equals(request.getMethod()) || longitud <= 0) {
+            return;
+        }
+
+        // Las imágenes chicas y muy pedidas salen de memoria: sin lectura de disco (almacenamiento lento)
+        if (imagenCacheService.admite(m.tamano)) {
+            ByteBuffer contenido;
+            try {
+                contenido = imagenCacheService.obtener(nombre, m.ruta);
+            } catch (NoSuchFileException e) {
+                invalidar(nombre);
+                response.reset();
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            if (contenido.remaining() == m.tamano) {
+                contenido.position((int) inicio).limit((int) (fin + 1));
+                OutputStream salida = response.getOutputStream();
+                WritableByteChannel destino = Channels.newChannel(salida);
+                while (contenido.hasRemaining()) {
+                    destino.write(contenido);
+                }
+                salida.flush();
+                return;
+            }
+            // El archivo cambió de tamaño desde que se tomaron los metadatos: se descartan ambos
+            invalidar(nombre);
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SOPORTADO))) {
+            // Tomcat envía el archivo al terminar la petición; no se escribe nada en la salida
+            request.setAttribute(SENDFILE_ARCHIVO, m.ruta.toString());
+            request.setAttribute(SENDFILE_INICIO, inicio);
+            request.setAttribute(SENDFILE_FIN, fin + 1);
+            return;
+        }
+
+        try (FileChannel canal = FileChannel.open(m.ruta, StandardOpenOption.READ)) {
+            OutputStream salida = response.getOutputStream();
+            WritableByteChannel destino = Channels.newChannel(salida);
+            long posicion = inicio;
+            long restante = longitud;
+            while (restante > 0) {
+                long enviados = canal.transferTo(posicion, restante, destino);
+                if (enviados <= 0) break;
+                posicion += enviados;
+                restante -= enviados;
+            }
+            salida.flush();
+        } catch (NoSuchFileException e) {
+            // Borrado entre la consulta de metadatos y la lectura (p.ej. por el GC de subidas)
+            invalidar(nombre);
+            if (!response.isCommitted()) {
+                response.reset();
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            }
+        }
+    }
+
+    Metadatos metadatos(String nombre) throws IOException {
+        synchronized (metadatos) {
+            Metadatos m = metadatos.get(nombre);
+            if (m != null) return m;
+        }
+        Path ruta = storageService.load(nombre);
+        BasicFileAttributes attrs = Files.readAttributes(ruta, BasicFileAttributes.class);
+        if (!attrs.isRegularFile()) {
+            throw new NoSuchFileException(nombre);
+        }
+        long tamano = attrs.size();
+        long modificado = attrs.lastModifiedTime().toMillis() / 1000 * 1000;
+        boolean porContenido = StorageService.esPorContenido(nombre);
+        String archivo = nombre.substring(nombre.lastIndexOf('/') + 1);
+        // Por contenido el propio hash es la validación; si no, tamaño + fecha
+        String etag = porContenido
+                ? "\"" + (archivo.lastIndexOf('.') > 0 ? archivo.substring(0, archivo.lastIndexOf('.')) : archivo) + "\""
+                : "\"" + Long.toHexString(tamano) + "-" + Long.toHexString(modificado) + "\"";
+        Metadatos m = new Metadatos(ruta, tamano, modificado, contentType(archivo, ruta), etag,
+                porContenido || NOMBRE_UUID.matcher(archivo).matches());
+        synchronized (metadatos) {
+            metadatos.put(nombre, m);
+        }
+        return m;
+    }
+
+    // Llamar cuando un archivo se reescribe o se borra (limpia metadatos y contenido cacheado)
+    public void invalidar(String nombre) {
+        synchronized (metadatos) {
+            metadatos.remove(nombre);
+        }
+        imagenCacheService.invalidar(nombre);
+    }
+
+    private static String contentType(String archivo, Path ruta) {
+        int punto = archivo.lastIndexOf('.');
+        String tipo = punto >= 0 ? TIPOS.get(archivo.substring(punto + 1).toLowerCase(Locale.ROOT)) : null;
+        if (tipo != null) return tipo;
+        try {
+            tipo = Files.probeContentType(ruta);
+        } catch (IOException e) {
+            log.debug("No se pudo detectar el tipo de {}", ruta, e);
+        }
+        return tipo != null ? tipo : "application/octet-stream";
+    }
+
+    private static boolean noModificado(HttpServletRequest request, Metadatos m) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String etag : ifNoneMatch.split(",")) {
+                String e = etag.trim();
+                if (e.startsWith("W/")) e = e.substring(2);
+                if (e.equals(m.etag) || e.equals("*")) return true;
+            }
+            return false;
+        }
+        long ifModifiedSince = fecha(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && m.ultimaModificacion <= ifModifiedSince;
+    }
+
+    // If-Range: el rango solo vale si el cliente todavía tiene la misma versión
+    private static boolean aplicaRango(HttpServletRequest request, Metadatos m) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) return true;
+        if (ifRange.startsWith("\"")) return ifRange.equals(m.etag);
+        long desde = fecha(request, HttpHeaders.IF_RANGE);
+        return desde >= 0 && m.ultimaModificacion <= desde;
+    }
+
+    private static long fecha(HttpServletRequest request, String header) {
+        try {
+            return request.getDateHeader(header);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Devuelve {inicio, fin} inclusivos, un arreglo vacío si hay que ignorar el Range
+     * (varios rangos o sintaxis desconocida: se responde el archivo completo) o null si no es satisfacible.
+     */
+    static long[] parsearRango(String range, long tamano) {
+        Matcher matcher = RANGO.matcher(range.trim());
+        if (!matcher.matches()) return new long[0];
+        String desde = matcher.group(1);
+        String hasta = matcher.group(2);
+        try {
+            long inicio;
+            long fin;
+            if (desde.isEmpty()) {
+                if (hasta.isEmpty()) return new long[0];
+                long sufijo = Long.parseLong(hasta);
+                if (sufijo == 0) return null;
+                inicio = Math.max(0, tamano - sufijo);
+                fin = tamano - 1;
+            } else {
+                inicio = Long.parseLong(desde);
+                fin = hasta.isEmpty() ? tamano - 1 : Math.min(Long.parseLong(hasta), tamano - 1);
+            }
+            if (inicio >= tamano || inicio > fin) return null;
+            return new long[]{inicio, fin};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+}
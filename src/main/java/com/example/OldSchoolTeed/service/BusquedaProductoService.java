@@ -0,0 +1,251 @@
+package com.example.OldSchoolTeed.service;
+
+import com.example.OldSchoolTeed.Config.exception.SolicitudInvalidaException;
+import com.example.OldSchoolTeed.dto.BusquedaProductosResponse;
+import com.example.OldSchoolTeed.dto.ProductoResponse;
+import com.example.OldSchoolTeed.service.event.CatalogoSnapshotActualizadoEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria para la búsqueda de productos activos.
+ * Se alimenta del snapshot del catálogo (CatalogoSnapshotActualizadoEvent): reconstrucción
+ * completa cuando el snapshot se rehace y actualización incremental de los productos cambiados.
+ *
+ * Campos indexados con peso: nombre (3), leyendas nombre/número (2), categoría (2), descripción (1).
+ * Texto sin tildes y en minúsculas ("Camiseta Perú" == "camiseta peru"); ranking BM25 (k1=1.2, b=0.75).
+ * Todos los términos de la consulta deben aparecer (AND); cada término también casa por prefijo
+ * con menor peso, para búsquedas mientras se escribe ("mess" -> "messi").
+ */
+@Service
+public class BusquedaProductoService {
+
+    private static final Logger log = LoggerFactory.getLogger(BusquedaProductoService.class);
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int PESO_NOMBRE = 3;
+    private static final int PESO_LEYENDA = 2;
+    private static final int PESO_CATEGORIA = 2;
+    private static final int PESO_DESCRIPCION = 1;
+    private static final double FACTOR_PREFIJO = 0.5;
+    private static final int MAX_EXPANSIONES_PREFIJO = 50;
+    private static final Pattern SEPARADOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "al", "de", "del", "e", "el", "en", "con", "la", "las", "lo", "los",
+            "o", "para", "por", "u", "un", "una", "unos", "unas", "y");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Indice indice = new Indice();
+
+    //  CONSULTA
+
+    public BusquedaProductosResponse buscar(String consulta, int page, int size) {
+        if (consulta == null || consulta.isBlank()) {
+            throw new SolicitudInvalidaException("El parámetro q es obligatorio");
+        }
+        if (page < 0 || size < 1 || size > 100) {
+            throw new SolicitudInvalidaException("Paginación no válida: page >= 0 y size entre 1 y 100");
+        }
+        List<String> terminos = new ArrayList<>(new LinkedHashSet<>(tokenizar(consulta)));
+
+        List<Map.Entry<Integer, Double>> resultados = Collections.emptyList();
+        List<ProductoResponse> items = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            int n = indice.documentos.size();
+            if (!terminos.isEmpty() && n > 0) {
+                double longitudMedia = (double) indice.longitudTotal / n;
+                Map<Integer, Double> puntajes = null;
+                for (String termino : terminos) {
+                    Map<Integer, Double> delTermino = puntuarTermino(termino, n, longitudMedia);
+                    if (puntajes == null) {
+                        puntajes = delTermino;
+                    } else {
+                        puntajes.keySet().retainAll(delTermino.keySet());
+                        puntajes.replaceAll((id, s) -> s + delTermino.get(id));
+                    }
+                    if (puntajes.isEmpty()) break;
+                }
+                resultados = new ArrayList<>(puntajes.entrySet());
+                resultados.sort(Map.Entry.<Integer, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.<Integer, Double>comparingByKey()));
+            }
+            int desde = (int) Math.min((long) page * size, resultados.size());
+            int hasta = Math.min(desde + size, resultados.size());
+            for (Map.Entry<Integer, Double> r : resultados.subList(desde, hasta)) {
+                items.add(indice.documentos.get(r.getKey()).producto);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return BusquedaProductosResponse.builder()
+                .consulta(consulta)
+                .total(resultados.size())
+                .page(page)
+                .size(size)
+                .items(items)
+                .build();
+    }
+
+    // Debe llamarse con el lock de lectura tomado
+    private Map<Integer, Double> puntuarTermino(String termino, int n, double longitudMedia) {
+        Map<Integer, Double> puntajes = new HashMap<>();
+        Map<Integer, Integer> exactos = indice.postings.get(termino);
+        if (exactos != null) {
+            acumular(puntajes, exactos, 1.0, n, longitudMedia);
+        }
+        if (termino.length() >= 2) {
+            int expansiones = 0;
+            for (Map<Integer, Integer> postings : indice.postings
+                    .subMap(termino, false, termino + Character.MAX_VALUE, false).values()) {
+                if (++expansiones > MAX_EXPANSIONES_PREFIJO) break;
+                acumular(puntajes, postings, FACTOR_PREFIJO, n, longitudMedia);
+            }
+        }
+        return puntajes;
+    }
+
+    private void acumular(Map<Integer, Double> puntajes, Map<Integer, Integer> postings, double factor,
+                          int n, double longitudMedia) {
+        int df = postings.size();
+        double idf = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+        for (Map.Entry<Integer, Integer> p : postings.entrySet()) {
+            double tf = p.getValue();
+            double longitud = indice.documentos.get(p.getKey()).longitud;
+            double bm25 = idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * longitud / longitudMedia));
+            puntajes.merge(p.getKey(), factor * bm25, Double::sum);
+        }
+    }
+
+    //  MANTENIMIENTO
+
+    @EventListener
+    public void onSnapshotActualizado(CatalogoSnapshotActualizadoEvent event) {
+        try {
+            if (event.isCompleto()) {
+                // Se arma fuera del lock y se reemplaza de golpe
+                Indice nuevo = new Indice();
+                for (ProductoResponse p : event.getProductos().values()) {
+                    if (Boolean.TRUE.equals(p.getActivo())) {
+                        nuevo.agregar(documento(p));
+                    }
+                }
+                lock.writeLock().lock();
+                try {
+                    indice = nuevo;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                log.info("Índice de búsqueda reconstruido: {} productos, {} términos",
+                        nuevo.documentos.size(), nuevo.postings.size());
+            } else {
+                List<Documento> cambiados = new ArrayList<>();
+                for (Integer id : event.getProductoIds()) {
+                    ProductoResponse p = event.getProductos().get(id);
+                    if (p != null && Boolean.TRUE.equals(p.getActivo())) {
+                        cambiados.add(documento(p));
+                    }
+                }
+                lock.writeLock().lock();
+                try {
+                    event.getProductoIds().forEach(indice::quitar);
+                    cambiados.forEach(indice::agregar);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                log.debug("Índice de búsqueda actualizado para productos {}", event.getProductoIds());
+            }
+        } catch (RuntimeException e) {
+            // El índice anterior sigue sirviendo; el próximo refresco completo lo corrige
+            log.error("Error al actualizar el índice de búsqueda", e);
+        }
+    }
+
+    private static Documento documento(ProductoResponse p) {
+        Map<String, Integer> frecuencias = new HashMap<>();
+        sumar(frecuencias, p.getNombre(), PESO_NOMBRE);
+        sumar(frecuencias, p.getCategoriaNombre(), PESO_CATEGORIA);
+        sumar(frecuencias, p.getDescripcion(), PESO_DESCRIPCION);
+        if (p.getLeyendas() != null) {
+            for (ProductoResponse.LeyendaDto l : p.getLeyendas()) {
+                sumar(frecuencias, l.getNombre(), PESO_LEYENDA);
+                sumar(frecuencias, l.getNumero(), PESO_LEYENDA);
+            }
+        }
+        return new Documento(p, frecuencias);
+    }
+
+    private static void sumar(Map<String, Integer> frecuencias, String texto, int peso) {
+        for (String t : tokenizar(texto)) {
+            frecuencias.merge(t, peso, Integer::sum);
+        }
+    }
+
+    // Minúsculas, sin tildes (NFD sin marcas) y sin palabras vacías
+    static List<String> tokenizar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return Collections.emptyList();
+        }
+        String plano = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String t : SEPARADOR.split(plano)) {
+            if (!t.isEmpty() && !STOPWORDS.contains(t)) {
+                tokens.add(t);
+            }
+        }
+        return tokens;
+    }
+
+    private static final class Documento {
+        final ProductoResponse producto;
+        final Map<String, Integer> frecuencias;
+        final int longitud;
+
+        Documento(ProductoResponse producto, Map<String, Integer> frecuencias) {
+            this.producto = producto;
+            this.frecuencias = frecuencias;
+            this.longitud = frecuencias.values().stream().mapToInt(Integer::intValue).sum();
+        }
+    }
+
+    // No es thread-safe por sí mismo: se accede bajo el ReadWriteLock del servicio
+    private static final class Indice {
+        final Map<Integer, Documento> documentos = new HashMap<>();
+        // Ordenado para poder recorrer términos por prefijo
+        final NavigableMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+        long longitudTotal;
+
+        void agregar(Documento d) {
+            Integer id = d.producto.getId();
+            quitar(id);
+            documentos.put(id, d);
+            longitudTotal += d.longitud;
+            d.frecuencias.forEach((t, tf) -> postings.computeIfAbsent(t, k -> new HashMap<>()).put(id, tf));
+        }
+
+        void quitar(Integer id) {
+            Documento previo = documentos.remove(id);
+            if (previo == null) return;
+            longitudTotal -= previo.longitud;
+            for (String t : previo.frecuencias.keySet()) {
+                Map<Integer, Integer> lista = postings.get(t);
+                if (lista != null) {
+                    lista.remove(id);
+                    if (lista.isEmpty()) postings.remove(t);
+                }
+            }
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.OldSchoolTeed.service;
 
 import com.example.OldSchoolTeed.dto.AddItemRequest;
+import com.example.OldSchoolTeed.dto.CarritoDeltaResponse;
+import com.example.OldSchoolTeed.dto.CarritoLoteRequest;
 import com.example.OldSchoolTeed.dto.CarritoResponse;
 import com.example.OldSchoolTeed.dto.UpdateCantidadRequest;
 import jakarta.validation.Valid;
@@ -16,4 +18,14 @@ public interface CarritoService {
     CarritoResponse removeItemFromCarrito(String userEmail, Integer detalleCarritoId);
 
     CarritoResponse updateItemQuantity(String userEmail, Integer detalleCarritoId, @Valid UpdateCantidadRequest request);
+
+    // Variantes livianas: devuelven solo la línea afectada, el total y la versión del carrito
+    CarritoDeltaResponse addItemToCarritoDelta(String userEmail, @Valid AddItemRequest request);
+
+    CarritoDeltaResponse removeItemFromCarritoDelta(String userEmail, Integer detalleCarritoId);
+
+    CarritoDeltaResponse updateItemQuantityDelta(String userEmail, Integer detalleCarritoId, @Valid UpdateCantidadRequest request);
+
+    // Varias operaciones (agregar / actualizar / eliminar) en una sola transacción
+    CarritoResponse aplicarLote(String userEmail, @Valid CarritoLoteRequest request);
 }
\ No newline at end of file
@@ -0,0 +1,226 @@
+package com.example.OldSchoolTeed.service;
+
+import com.example.OldSchoolTeed.dto.ProductoResponse;
+import com.example.OldSchoolTeed.entities.Producto;
+import com.example.OldSchoolTeed.repository.ProductoRepository;
+import com.example.OldSchoolTeed.service.event.CatalogoModificadoEvent;
+import com.example.OldSchoolTeed.service.event.CatalogoSnapshotActualizadoEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Catálogo público en memoria.
+ * Las lecturas de la tienda se sirven desde un Snapshot inmutable que se reemplaza
+ * de forma atómica; las escrituras publican CatalogoModificadoEvent y, tras el commit,
+ * se recargan solo los productos afectados.
+ * Métricas (Actuator): catalogo.snapshot.consultas{resultado=hit|miss},
+ * catalogo.snapshot.reconstruccion{tipo=completa|incremental}, catalogo.snapshot.productos.
+ */
+@Service
+public class CatalogoSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogoSnapshotService.class);
+
+    private final ProductoRepository productoRepository;
+    private final ProductoBatchMapper productoBatchMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate lecturaTx;
+
+    private final AtomicReference<Snapshot> actual = new AtomicReference<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer reconstruccionCompleta;
+    private final Timer reconstruccionIncremental;
+
+    public CatalogoSnapshotService(ProductoRepository productoRepository,
+                                   ProductoBatchMapper productoBatchMapper,
+                                   ApplicationEventPublisher eventPublisher,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry) {
+        this.productoRepository = productoRepository;
+        this.productoBatchMapper = productoBatchMapper;
+        this.eventPublisher = eventPublisher;
+
+        // Los refrescos corren después del commit de otra transacción: siempre en una nueva
+        this.lecturaTx = new TransactionTemplate(transactionManager);
+        this.lecturaTx.setReadOnly(true);
+        this.lecturaTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        this.hits = Counter.builder("catalogo.snapshot.consultas").tag("resultado", "hit")
+                .description("Lecturas del catálogo servidas desde memoria").register(meterRegistry);
+        this.misses = Counter.builder("catalogo.snapshot.consultas").tag("resultado", "miss")
+                .description("Lecturas del catálogo que tuvieron que ir a la base de datos").register(meterRegistry);
+        this.reconstruccionCompleta = Timer.builder("catalogo.snapshot.reconstruccion").tag("tipo", "completa")
+                .register(meterRegistry);
+        this.reconstruccionIncremental = Timer.builder("catalogo.snapshot.reconstruccion").tag("tipo", "incremental")
+                .register(meterRegistry);
+        Gauge.builder("catalogo.snapshot.productos", actual, ref -> ref.get() != null ? ref.get().porId.size() : 0)
+                .register(meterRegistry);
+    }
+
+    //  LECTURAS (Optional vacío = miss, el llamador va a la base de datos)
+
+    public Optional<List<ProductoResponse>> getActivos() {
+        Snapshot s = actual.get();
+        if (s == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(s.activos);
+    }
+
+    public Optional<List<ProductoResponse>> getActivosPorCategoria(String nombreCategoria) {
+        Snapshot s = actual.get();
+        if (s == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(s.activosPorCategoria.getOrDefault(nombreCategoria, Collections.emptyList()));
+    }
+
+    public Optional<ProductoResponse> getPorId(Integer id) {
+        Snapshot s = actual.get();
+        ProductoResponse p = s != null ? s.porId.get(id) : null;
+        if (p == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(p);
+    }
+
+    //  CONSTRUCCIÓN
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        reconstruirCompleto();
+    }
+
+    // Red de seguridad ante cambios que no pasan por los servicios (p.ej. SQL manual)
+    @Scheduled(fixedDelayString = "${catalogo.snapshot.refresh-ms:300000}",
+            initialDelayString = "${catalogo.snapshot.refresh-ms:300000}")
+    public void refrescoPeriodico() {
+        reconstruirCompleto();
+    }
+
+    // Antes que CatalogoVersionService: la nueva versión solo se anuncia con el snapshot ya al día
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCatalogoModificado(CatalogoModificadoEvent event) {
+        if (event.isCompleto() || actual.get() == null) {
+            reconstruirCompleto();
+        } else if (!event.getProductoIds().isEmpty()) {
+            recargarProductos(event.getProductoIds());
+        }
+    }
+
+    public synchronized void reconstruirCompleto() {
+        Snapshot previo = actual.get();
+        try {
+            Snapshot nuevo = reconstruccionCompleta.recordCallable(() -> lecturaTx.execute(status -> {
+                Map<Integer, ProductoResponse> porId = new TreeMap<>();
+                for (ProductoResponse p : productoBatchMapper.mapear(productoRepository.findTodosConCategoria())) {
+                    porId.put(p.getId(), p);
+                }
+                return Snapshot.de(porId, siguienteVersion(previo));
+            }));
+            actual.set(nuevo);
+            boolean cambiado = previo == null || !previo.porId.equals(nuevo.porId);
+            eventPublisher.publishEvent(new CatalogoSnapshotActualizadoEvent(nuevo.porId, Collections.emptySet(), true, cambiado));
+            log.info("Snapshot del catálogo reconstruido (v{}, {} productos)", nuevo.version, nuevo.porId.size());
+        } catch (Exception e) {
+            // Sin snapshot las lecturas caen a la base de datos hasta el próximo intento
+            actual.set(null);
+            log.error("Error al reconstruir el snapshot del catálogo", e);
+        }
+    }
+
+    private synchronized void recargarProductos(Set<Integer> productoIds) {
+        Snapshot previo = actual.get();
+        if (previo == null) {
+            reconstruirCompleto();
+            return;
+        }
+        try {
+            Snapshot nuevo = reconstruccionIncremental.recordCallable(() -> lecturaTx.execute(status -> {
+                Map<Integer, ProductoResponse> porId = new TreeMap<>(previo.porId);
+                productoIds.forEach(porId::remove);
+                List<Producto> productos = productoRepository.findByIdsConCategoria(productoIds);
+                for (ProductoResponse p : productoBatchMapper.mapear(productos)) {
+                    porId.put(p.getId(), p);
+                }
+                return Snapshot.de(porId, siguienteVersion(previo));
+            }));
+            actual.set(nuevo);
+            eventPublisher.publishEvent(new CatalogoSnapshotActualizadoEvent(nuevo.porId, productoIds, false, true));
+            log.debug("Snapshot del catálogo actualizado (v{}) para productos {}", nuevo.version, productoIds);
+        } catch (Exception e) {
+            actual.set(null);
+            log.error("Error al actualizar el snapshot para productos {}", productoIds, e);
+        }
+    }
+
+    private static long siguienteVersion(Snapshot previo) {
+        return previo != null ? previo.version + 1 : 1;
+    }
+
+    /**
+     * Vista inmutable del catálogo. Los índices se derivan de porId en cada versión.
+     */
+    static final class Snapshot {
+        final long version;
+        final Instant construidoEn;
+        final Map<Integer, ProductoResponse> porId;
+        final List<ProductoResponse> activos;
+        final Map<String, List<ProductoResponse>> activosPorCategoria;
+
+        private Snapshot(long version, Map<Integer, ProductoResponse> porId, List<ProductoResponse> activos,
+                         Map<String, List<ProductoResponse>> activosPorCategoria) {
+            this.version = version;
+            this.construidoEn = Instant.now();
+            this.porId = porId;
+            this.activos = activos;
+            this.activosPorCategoria = activosPorCategoria;
+        }
+
+        // porId debe venir ordenado por id (TreeMap) para conservar el orden de los listados
+        static Snapshot de(Map<Integer, ProductoResponse> porId, long version) {
+            List<ProductoResponse> activos = new ArrayList<>();
+            Map<String, List<ProductoResponse>> porCategoria = new HashMap<>();
+            for (ProductoResponse p : porId.values()) {
+                if (Boolean.TRUE.equals(p.getActivo())) {
+                    activos.add(p);
+                    porCategoria.computeIfAbsent(p.getCategoriaNombre(), k -> new ArrayList<>()).add(p);
+                }
+            }
+            porCategoria.replaceAll((k, v) -> List.copyOf(v));
+            return new Snapshot(version,
+                    Collections.unmodifiableMap(porId),
+                    List.copyOf(activos),
+                    Map.copyOf(porCategoria));
+        }
+    }
+}
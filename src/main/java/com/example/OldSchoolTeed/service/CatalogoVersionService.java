@@ -0,0 +1,73 @@
+package com.example.OldSchoolTeed.service;
+
+import com.example.OldSchoolTeed.service.event.CatalogoModificadoEvent;
+import com.example.OldSchoolTeed.service.event.CatalogoSnapshotActualizadoEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Versión del catálogo público (productos, categorías, promociones y stock).
+ * Cada CatalogoModificadoEvent confirmado la incrementa, y también una reconstrucción completa
+ * del snapshot que encuentra datos distintos; los GET públicos la usan como
+ * ETag fuerte y Last-Modified para responder 304 sin consultar la base de datos.
+ * El ETag incluye el instante de arranque para que un reinicio no reutilice versiones.
+ */
+@Service
+public class CatalogoVersionService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogoVersionService.class);
+
+    private final long arranque = System.currentTimeMillis();
+    private final AtomicReference<Version> actual =
+            new AtomicReference<>(new Version(0, Instant.now().truncatedTo(ChronoUnit.SECONDS)));
+
+    public String etag() {
+        return "\"cat-" + arranque + "-" + actual.get().numero + "\"";
+    }
+
+    public long ultimaModificacion() {
+        return actual.get().modificadoEn.toEpochMilli();
+    }
+
+    // Después del refresco del snapshot (ver CatalogoSnapshotService.onCatalogoModificado)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onCatalogoModificado(CatalogoModificadoEvent event) {
+        incrementar();
+    }
+
+    // Cambios que no pasan por los servicios (p.ej. SQL manual) solo los ve el refresco periódico completo
+    @EventListener
+    public void onSnapshotActualizado(CatalogoSnapshotActualizadoEvent event) {
+        if (event.isCompleto() && event.isContenidoCambiado()) {
+            incrementar();
+        }
+    }
+
+    private void incrementar() {
+        // Last-Modified tiene resolución de segundos
+        Instant ahora = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        Version nueva = actual.updateAndGet(v -> new Version(v.numero + 1, ahora));
+        log.debug("Versión del catálogo -> {}", nueva.numero);
+    }
+
+    private static final class Version {
+        final long numero;
+        final Instant modificadoEn;
+
+        Version(long numero, Instant modificadoEn) {
+            this.numero = numero;
+            this.modificadoEn = modificadoEn;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.OldSchoolTeed.service;
+
+import com.example.OldSchoolTeed.Config.exception.SolicitudInvalidaException;
+import com.example.OldSchoolTeed.dto.FacetasProductosResponse;
+import com.example.OldSchoolTeed.dto.ProductoResponse;
+import com.example.OldSchoolTeed.entities.Producto;
+import com.example.OldSchoolTeed.service.event.CatalogoSnapshotActualizadoEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Facetas del catálogo público con un BitSet por valor de faceta.
+ * Cada producto activo recibe un ordinal denso (en orden de id) y cada valor de faceta
+ * (categoría, talla, rango de precio, promoción vigente, con stock) guarda los ordinales que lo cumplen.
+ * Filtrar es intersectar bitsets: OR dentro de una faceta, AND entre facetas. Los conteos son
+ * disyuntivos: los de una faceta se calculan con los filtros de las demás, como en cualquier tienda.
+ * El índice es inmutable y se reconstruye desde el snapshot en cada cambio (O(productos)).
+ */
+@Service
+public class FacetasProductoService {
+
+    private static final Logger log = LoggerFactory.getLogger(FacetasProductoService.class);
+
+    public static final String CATEGORIA = "categoria";
+    public static final String TALLA = "talla";
+    public static final String PRECIO = "precio";
+    public static final String PROMOCION = "promocion";
+    public static final String EN_STOCK = "enStock";
+    private static final List<String> FACETAS = List.of(CATEGORIA, TALLA, PRECIO, PROMOCION, EN_STOCK);
+
+    private final List<BigDecimal> limitesPrecio;
+    private final AtomicReference<Indice> actual = new AtomicReference<>();
+
+    public FacetasProductoService(@Value("${catalogo.facetas.rangos-precio:50,100,150,200}") String rangosPrecio) {
+        List<BigDecimal> limites = new ArrayList<>();
+        for (String l : rangosPrecio.split(",")) {
+            limites.add(new BigDecimal(l.trim()));
+        }
+        Collections.sort(limites);
+        this.limitesPrecio = List.copyOf(limites);
+        this.actual.set(construir(Collections.emptyList()));
+    }
+
+    //  CONSULTA
+
+    /**
+     * @param seleccion faceta -> valores elegidos (las facetas sin valores no filtran)
+     */
+    public FacetasProductosResponse filtrar(Map<String, List<String>> seleccion, int page, int size) {
+        if (page < 0 || size < 1 || size > 100) {
+            throw new SolicitudInvalidaException("Paginación no válida: page >= 0 y size entre 1 y 100");
+        }
+        Indice indice = actual.get();
+
+        // Un bitset por faceta filtrada: unión de los valores elegidos
+        Map<String, BitSet> filtros = new HashMap<>();
+        for (String faceta : FACETAS) {
+            List<String> valores = seleccion.getOrDefault(faceta, Collections.emptyList());
+            if (valores.isEmpty()) continue;
+            BitSet union = new BitSet(indice.productos.length);
+            Map<String, BitSet> porValor = indice.facetas.get(faceta);
+            for (String v : valores) {
+                BitSet bits = porValor.get(v);
+                if (bits != null) union.or(bits);
+            }
+            filtros.put(faceta, union);
+        }
+
+        BitSet resultado = (BitSet) indice.todos.clone();
+        filtros.values().forEach(resultado::and);
+
+        Map<String, List<FacetasProductosResponse.ValorFaceta>> conteos = new LinkedHashMap<>();
+        for (String faceta : FACETAS) {
+            BitSet base = (BitSet) indice.todos.clone();
+            filtros.forEach((otra, bits) -> {
+                if (!otra.equals(faceta)) base.and(bits);
+            });
+            List<String> elegidos = seleccion.getOrDefault(faceta, Collections.emptyList());
+            List<FacetasProductosResponse.ValorFaceta> valores = new ArrayList<>();
+            indice.facetas.get(faceta).forEach((valor, bits) -> {
+                BitSet interseccion = (BitSet) base.clone();
+                interseccion.and(bits);
+                valores.add(new FacetasProductosResponse.ValorFaceta(valor, interseccion.cardinality(), elegidos.contains(valor)));
+            });
+            conteos.put(faceta, valores);
+        }
+
+        List<ProductoResponse> items = new ArrayList<>(size);
+        long saltar = (long) page * size;
+        for (int i = resultado.nextSetBit(0); i >= 0 && items.size() < size; i = resultado.nextSetBit(i + 1)) {
+            if (saltar-- > 0) continue;
+            items.add(indice.productos[i]);
+        }
+
+        return FacetasProductosResponse.builder()
+                .total(resultado.cardinality())
+                .page(page)
+                .size(size)
+                .items(items)
+                .facetas(conteos)
+                .build();
+    }
+
+    //  CONSTRUCCIÓN
+
+    @EventListener
+    public void onSnapshotActualizado(CatalogoSnapshotActualizadoEvent event) {
+        try {
+            List<ProductoResponse> activos = new ArrayList<>();
+            for (ProductoResponse p : event.getProductos().values()) {
+                if (Boolean.TRUE.equals(p.getActivo())) activos.add(p);
+            }
+            Indice nuevo = construir(activos);
+            actual.set(nuevo);
+            log.debug("Facetas reconstruidas sobre {} productos", nuevo.productos.length);
+        } catch (RuntimeException e) {
+            log.error("Error al reconstruir las facetas del catálogo", e);
+        }
+    }
+
+    private Indice construir(List<ProductoResponse> productos) {
+        Map<String, Map<String, BitSet>> facetas = new LinkedHashMap<>();
+        facetas.put(CATEGORIA, new TreeMap<>());
+        facetas.put(TALLA, new LinkedHashMap<>());
+        for (Producto.Talla t : Producto.Talla.values()) {
+            facetas.get(TALLA).put(t.name(), new BitSet());
+        }
+        facetas.put(PRECIO, new LinkedHashMap<>());
+        for (int i = 0; i <= limitesPrecio.size(); i++) {
+            facetas.get(PRECIO).put(etiquetaRango(i), new BitSet());
+        }
+        facetas.put(PROMOCION, new TreeMap<>());
+        facetas.put(EN_STOCK, new LinkedHashMap<>());
+        facetas.get(EN_STOCK).put("true", new BitSet());
+        facetas.get(EN_STOCK).put("false", new BitSet());
+
+        ProductoResponse[] porOrdinal = productos.toArray(new ProductoResponse[0]);
+        BitSet todos = new BitSet(porOrdinal.length);
+        todos.set(0, porOrdinal.length);
+        for (int i = 0; i < porOrdinal.length; i++) {
+            ProductoResponse p = porOrdinal[i];
+            marcar(facetas.get(CATEGORIA), p.getCategoriaNombre(), i);
+            marcar(facetas.get(TALLA), p.getTalla(), i);
+            marcar(facetas.get(PRECIO), etiquetaRango(rangoDe(p.getPrecio())), i);
+            if (p.getNombrePromocion() != null) {
+                marcar(facetas.get(PROMOCION), p.getNombrePromocion(), i);
+            }
+            marcar(facetas.get(EN_STOCK), String.valueOf(p.getStock() != null && p.getStock() > 0), i);
+        }
+        return new Indice(porOrdinal, todos, facetas);
+    }
+
+    private static void marcar(Map<String, BitSet> valores, String valor, int ordinal) {
+        if (valor == null) return;
+        valores.computeIfAbsent(valor, k -> new BitSet()).set(ordinal);
+    }
+
+    private int rangoDe(BigDecimal precio) {
+        if (precio == null) return 0;
+        int i = 0;
+        while (i < limitesPrecio.size() && precio.compareTo(limitesPrecio.get(i)) >= 0) i++;
+        return i;
+    }
+
+    // "0-50", "50-100", ..., "200+"
+    private String etiquetaRango(int i) {
+        String desde = i == 0 ? "0" : limitesPrecio.get(i - 1).toPlainString();
+        return i < limitesPrecio.size() ? desde + "-" + limitesPrecio.get(i).toPlainString() : desde + "+";
+    }
+
+    private static final class Indice {
+        final ProductoResponse[] productos;
+        final BitSet todos;
+        final Map<String, Map<String, BitSet>> facetas;
+
+        Indice(ProductoResponse[] productos, BitSet todos, Map<String, Map<String, BitSet>> facetas) {
+            this.productos = productos;
+            this.todos = todos;
+            this.facetas = facetas;
+        }
+    }
+}
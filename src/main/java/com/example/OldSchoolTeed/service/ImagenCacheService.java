@@ -0,0 +1,97 @@
+package com.example.OldSchoolTeed.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Caché de contenido de las imágenes más pedidas (hero, cards), acotada por bytes totales.
+ * Caffeine (W-TinyLFU) decide qué entra y qué se desaloja; solo se cachean archivos de hasta
+ * file.cache.max-entrada-bytes. Con file.cache.directo=true el contenido vive en ByteBuffers
+ * directos (fuera del heap; cuenta contra -XX:MaxDirectMemorySize).
+ * Métricas (Actuator): cache.gets{cache=uploads.imagenes,result=hit|miss}, cache.evictions,
+ * cache.eviction.weight y uploads.imagenes.cache.bytes.
+ */
+@Service
+public class ImagenCacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImagenCacheService.class);
+    private static final String NOMBRE_CACHE = "uploads.imagenes";
+
+    private final Cache<String, ByteBuffer> cache;
+    private final long maxEntradaBytes;
+    private final boolean directo;
+
+    public ImagenCacheService(@Value("${file.cache.max-bytes:67108864}") long maxBytes,
+                              @Value("${file.cache.max-entrada-bytes:1048576}") long maxEntradaBytes,
+                              @Value("${file.cache.directo:false}") boolean directo,
+                              MeterRegistry meterRegistry) {
+        this.maxEntradaBytes = maxBytes > 0 ? Math.min(maxEntradaBytes, Integer.MAX_VALUE) : 0;
+        this.directo = directo;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(Math.max(maxBytes, 0))
+                .weigher((String nombre, ByteBuffer contenido) -> contenido.capacity())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NOMBRE_CACHE);
+        Gauge.builder(NOMBRE_CACHE + ".cache.bytes", cache,
+                        c -> c.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L))
+                .description("Bytes de imágenes en la caché")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        log.info("Caché de imágenes: {} bytes máx., {} bytes por archivo, {}",
+                maxBytes, this.maxEntradaBytes, directo ? "fuera del heap" : "en heap");
+    }
+
+    public boolean admite(long tamano) {
+        return tamano > 0 && tamano <= maxEntradaBytes;
+    }
+
+    /**
+     * Contenido completo del archivo (solo lectura), leyéndolo del disco si no estaba en la caché.
+     * Devuelve una vista nueva en cada llamada: el llamador puede mover position/limit libremente.
+     */
+    public ByteBuffer obtener(String nombre, Path ruta) throws IOException {
+        try {
+            return cache.get(nombre, k -> leer(ruta)).duplicate();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Llamar cuando el archivo se reescribe o se borra
+    public void invalidar(String nombre) {
+        cache.invalidate(nombre);
+    }
+
+    private ByteBuffer leer(Path ruta) {
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            int tamano = (int) canal.size();
+            ByteBuffer buffer = directo ? ByteBuffer.allocateDirect(tamano) : ByteBuffer.allocate(tamano);
+            while (buffer.hasRemaining()) {
+                if (canal.read(buffer) < 0) {
+                    throw new EOFException("Archivo truncado durante la lectura: " + ruta);
+                }
+            }
+            buffer.flip();
+            return buffer.asReadOnlyBuffer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.OldSchoolTeed.service;
+
+import com.example.OldSchoolTeed.entities.ImagenProducto;
+import com.example.OldSchoolTeed.entities.Producto;
+import com.example.OldSchoolTeed.repository.ImagenProductoRepository;
+import com.example.OldSchoolTeed.repository.ProductoRepository;
+import com.example.OldSchoolTeed.service.event.CatalogoModificadoEvent;
+import com.example.OldSchoolTeed.service.event.ImagenSubidaEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Genera variantes responsivas de las imágenes de producto: thumb (150px), card (400px)
+ * y detail (1000px) de ancho, sin agrandar nunca el original.
+ * Las variantes se re-codifican con ImageIO (JPEG calidad 0.85, o PNG si hay transparencia),
+ * lo que descarta EXIF/ICC y demás metadatos del archivo subido.
+ * Antes de decodificar se leen solo las dimensiones: las imágenes por encima de
+ * imagenes.variantes.max-pixeles se descartan y las grandes se decodifican submuestreadas.
+ * Corre en un pool acotado propio después del commit de la subida; al terminar guarda las URLs
+ * en Producto / ImagenProducto y avisa al catálogo.
+ */
+@Service
+public class ImagenVarianteService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImagenVarianteService.class);
+    private static final float CALIDAD_JPEG = 0.85f;
+
+    public enum Variante {
+        THUMB("thumb", 150),
+        CARD("card", 400),
+        DETAIL("detail", 1000);
+
+        final String sufijo;
+        final int ancho;
+
+        Variante(String sufijo, int ancho) {
+            this.sufijo = sufijo;
+            this.ancho = ancho;
+        }
+    }
+
+    private final StorageService storageService;
+    private final ArchivoEstaticoService archivoEstaticoService;
+    private final ProductoRepository productoRepository;
+    private final ImagenProductoRepository imagenProductoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate tx;
+    private final ThreadPoolTaskExecutor executor;
+    private final long maxPixeles;
+
+    public ImagenVarianteService(StorageService storageService,
+                                 ArchivoEstaticoService archivoEstaticoService,
+                                 ProductoRepository productoRepository,
+                                 ImagenProductoRepository imagenProductoRepository,
+                                 ApplicationEventPublisher eventPublisher,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${imagenes.variantes.hilos:2}") int hilos,
+                                 @Value("${imagenes.variantes.cola:200}") int cola,
+                                 @Value("${imagenes.variantes.max-pixeles:40000000}") long maxPixeles) {
+        this.storageService = storageService;
+        this.archivoEstaticoService = archivoEstaticoService;
+        this.productoRepository = productoRepository;
+        this.imagenProductoRepository = imagenProductoRepository;
+        this.eventPublisher = eventPublisher;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.maxPixeles = maxPixeles;
+
+        // Pool propio (no es un bean) para no reemplazar el executor por defecto de Spring MVC.
+        // Con la cola llena, quien publica procesa la imagen: frena a las subidas en vez de perderlas.
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(hilos);
+        this.executor.setMaxPoolSize(hilos);
+        this.executor.setQueueCapacity(cola);
+        this.executor.setThreadNamePrefix("imagen-variantes-");
+        this.executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.setWaitForTasksToCompleteOnShutdown(true);
+        this.executor.setAwaitTerminationSeconds(30);
+        this.executor.initialize();
+    }
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdown();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onImagenSubida(ImagenSubidaEvent event) {
+        executor.execute(() -> procesar(event));
+    }
+
+    private void procesar(ImagenSubidaEvent event) {
+        try {
+            Map<Variante, String> archivos = generarVariantes(event.getArchivo());
+            if (archivos.isEmpty()) {
+                return;
+            }
+            // Las variantes viven junto al original: la URL base es la del original sin su ruta relativa
+            String url = event.getUrl();
+            String base = url.endsWith(event.getArchivo())
+                    ? url.substring(0, url.length() - event.getArchivo().length())
+                    : url.substring(0, url.lastIndexOf('/') + 1);
+            Boolean guardado = tx.execute(status -> guardarUrls(event, base, archivos));
+            if (Boolean.TRUE.equals(guardado)) {
+                eventPublisher.publishEvent(CatalogoModificadoEvent.deProducto(event.getProductoId()));
+                log.info("Variantes generadas para {} (producto {})", event.getArchivo(), event.getProductoId());
+            } else {
+                log.debug("La imagen {} fue reemplazada antes de terminar sus variantes", event.getArchivo());
+            }
+        } catch (Exception e) {
+            // Sin variantes la tienda sigue usando la URL original
+            log.error("Error al generar variantes de {}", event.getArchivo(), e);
+        }
+    }
+
+    // Solo guarda si la entidad sigue apuntando a la misma imagen
+    private boolean guardarUrls(ImagenSubidaEvent event, String base, Map<Variante, String> archivos) {
+        String thumb = base + archivos.get(Variante.THUMB);
+        String card = base + archivos.get(Variante.CARD);
+        String detail = base + archivos.get(Variante.DETAIL);
+        if (event.getImagenId() == null) {
+            Producto p = productoRepository.findById(event.getProductoId()).orElse(null);
+            if (p == null || !Objects.equals(p.getImageUrl(), event.getUrl())) return false;
+            p.setImageThumbUrl(thumb);
+            p.setImageCardUrl(card);
+            p.setImageDetailUrl(detail);
+        } else {
+            ImagenProducto img = imagenProductoRepository.findById(event.getImagenId()).orElse(null);
+            if (img == null || !Objects.equals(img.getUrl(), event.getUrl())) return false;
+            img.setUrlThumb(thumb);
+            img.setUrlCard(card);
+            img.setUrlDetail(detail);
+        }
+        return true;
+    }
+
+    /**
+     * Genera las tres variantes del archivo y devuelve sus nombres relativos
+     * (vacío si ImageIO no sabe leer el formato, p.ej. WEBP).
+     */
+    public Map<Variante, String> generarVariantes(String archivo) throws IOException {
+        int punto = archivo.lastIndexOf('.');
+        String baseNombre = punto > archivo.lastIndexOf('/') ? archivo.substring(0, punto) : archivo;
+
+        // Un archivo por contenido que se vuelve a subir ya tiene sus variantes: no se re-codifica
+        if (StorageService.esPorContenido(archivo)) {
+            Map<Variante, String> existentes = new EnumMap<>(Variante.class);
+            for (String formato : new String[]{"jpg", "png"}) {
+                for (Variante v : Variante.values()) {
+                    String nombre = baseNombre + "_" + v.sufijo + "." + formato;
+                    if (Files.exists(storageService.load(nombre))) existentes.put(v, nombre);
+                }
+                if (existentes.size() == Variante.values().length) return existentes;
+                existentes.clear();
+            }
+        }
+
+        BufferedImage original = leerAcotada(storageService.load(archivo), archivo);
+        if (original == null) {
+            return Map.of();
+        }
+        boolean transparente = original.getColorModel().hasAlpha();
+        String formato = transparente ? "png" : "jpg";
+
+        Map<Variante, String> archivos = new EnumMap<>(Variante.class);
+        for (Variante v : Variante.values()) {
+            String nombre = baseNombre + "_" + v.sufijo + "." + formato;
+            escribir(redimensionar(original, v.ancho, transparente), formato, storageService.load(nombre));
+            archivoEstaticoService.invalidar(nombre);
+            archivos.put(v, nombre);
+        }
+        return archivos;
+    }
+
+    /**
+     * Lee primero solo las dimensiones (cabecera) y rechaza las que superan el presupuesto de píxeles,
+     * para que un archivo chico muy comprimido no reviente la memoria al decodificarse.
+     * Si la imagen es mucho más ancha que la variante más grande se decodifica submuestreada:
+     * se guarda el doble de ese ancho para que el redimensionado final conserve la calidad.
+     * Devuelve null si el formato no es soportado o la imagen es demasiado grande.
+     */
+    private BufferedImage leerAcotada(Path ruta, String archivo) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(ruta.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                log.warn("Formato de imagen no soportado para variantes: {}", archivo);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int ancho = reader.getWidth(0);
+                int alto = reader.getHeight(0);
+                if ((long) ancho * alto > maxPixeles) {
+                    log.warn("Imagen {} descartada para variantes: {}x{} supera el máximo de {} píxeles",
+                            archivo, ancho, alto, maxPixeles);
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int factor = Math.max(1, ancho / (Variante.DETAIL.ancho * 2));
+                if (factor > 1) {
+                    param.setSourceSubsampling(factor, factor, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Reduce a la mitad mientras se pueda y termina con bicúbica: mejor calidad que un solo salto grande
+    private static BufferedImage redimensionar(BufferedImage origen, int anchoMaximo, boolean transparente) {
+        int anchoFinal = Math.min(anchoMaximo, origen.getWidth());
+        int altoFinal = Math.max(1, (int) Math.round((double) origen.getHeight() * anchoFinal / origen.getWidth()));
+        int tipo = transparente ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage actual = origen;
+        int ancho = origen.getWidth();
+        int alto = origen.getHeight();
+        do {
+            ancho = Math.max(anchoFinal, ancho / 2);
+            alto = Math.max(altoFinal, alto / 2);
+            BufferedImage paso = new BufferedImage(ancho, alto, tipo);
+            Graphics2D g = paso.createGraphics();
+            try {
+                if (!transparente) {
+                    // JPEG no tiene alfa: fondo blanco para GIF/PNG opacos con paleta
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, ancho, alto);
+                }
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(actual, 0, 0, ancho, alto, null);
+            } finally {
+                g.dispose();
+            }
+            actual = paso;
+        } while (ancho != anchoFinal || alto != altoFinal);
+        return actual;
+    }
+
+    // Escribe a un temporal y lo mueve, para que nunca se sirva una variante a medio escribir
+    private static void escribir(BufferedImage imagen, String formato, Path destino) throws IOException {
+        Files.createDirectories(destino.getParent());
+        Path temporal = Files.createTempFile(destino.getParent(), ".variante-", ".tmp");
+        try {
+            if ("jpg".equals(formato)) {
+                ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(CALIDAD_JPEG);
+                try (ImageOutputStream out = ImageIO.createImageOutputStream(temporal.toFile())) {
+                    writer.setOutput(out);
+                    writer.write(null, new IIOImage(imagen, null, null), param);
+                } finally {
+                    writer.dispose();
+                }
+            } else {
+                ImageIO.write(imagen, formato, temporal.toFile());
+            }
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+}
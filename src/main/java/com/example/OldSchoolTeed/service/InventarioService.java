@@ -3,6 +3,8 @@ package com.example.OldSchoolTeed.service;
 import com.example.OldSchoolTeed.dto.InventarioResponse;
 import com.example.OldSchoolTeed.dto.InventarioUpdateRequest;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface InventarioService {
@@ -12,6 +14,8 @@ public interface InventarioService {
 
         List<InventarioResponse> getTodoElInventario();
 
+        void streamTodoElInventario(OutputStream out) throws IOException;
+
         InventarioResponse getInventarioPorProductoId(Integer productoId);
 }
 
@@ -0,0 +1,94 @@
+package com.example.OldSchoolTeed.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Escribe listados grandes como un array JSON directamente sobre la respuesta.
+ * Lee por lotes con keyset (id > último id), cada lote en su propia transacción de
+ * solo lectura; el lote se mapea, se escribe y se descarta, así el heap usado no
+ * depende del tamaño de la tabla y la conexión no queda retenida mientras el cliente lee.
+ */
+@Service
+public class JsonStreamingService {
+
+    private static final Logger log = LoggerFactory.getLogger(JsonStreamingService.class);
+    public static final int TAMANO_LOTE = 500;
+
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate lecturaTx;
+
+    public JsonStreamingService(ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.objectMapper = objectMapper;
+        this.lecturaTx = new TransactionTemplate(transactionManager);
+        this.lecturaTx.setReadOnly(true);
+    }
+
+    /**
+     * @param cargarLote (último id, página) -> entidades con id mayor, ordenadas por id
+     * @param id         id de cada entidad, para avanzar el cursor
+     * @param mapear     entidades del lote -> DTOs (se ejecuta dentro de la transacción)
+     * @return número de elementos escritos
+     */
+    public <E, R> long escribirArray(OutputStream out,
+                                     BiFunction<Integer, Pageable, List<E>> cargarLote,
+                                     Function<E, Integer> id,
+                                     Function<List<E>, List<R>> mapear) throws IOException {
+        long total = 0;
+        Integer ultimoId = 0;
+        // La respuesta la cierra el contenedor, no el generador
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            gen.writeStartArray();
+            while (true) {
+                final Integer desde = ultimoId;
+                Lote<R> lote = lecturaTx.execute(status -> {
+                    List<E> entidades = cargarLote.apply(desde, PageRequest.of(0, TAMANO_LOTE));
+                    if (entidades.isEmpty()) {
+                        return new Lote<R>(List.of(), desde);
+                    }
+                    return new Lote<>(mapear.apply(entidades), id.apply(entidades.get(entidades.size() - 1)));
+                });
+                if (lote == null || lote.items.isEmpty()) {
+                    break;
+                }
+                for (R item : lote.items) {
+                    gen.writeObject(item);
+                }
+                gen.flush();
+                total += lote.items.size();
+                ultimoId = lote.ultimoId;
+                if (lote.items.size() < TAMANO_LOTE) {
+                    break;
+                }
+            }
+            gen.writeEndArray();
+        }
+        log.debug("Listado JSON en streaming terminado: {} elementos", total);
+        return total;
+    }
+
+    private static final class Lote<R> {
+        final List<R> items;
+        final Integer ultimoId;
+
+        Lote(List<R> items, Integer ultimoId) {
+            this.items = items;
+            this.ultimoId = ultimoId;
+        }
+    }
+}
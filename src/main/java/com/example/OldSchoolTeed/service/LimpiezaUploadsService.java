@@ -0,0 +1,292 @@
+package com.example.OldSchoolTeed.service;
+
+import com.example.OldSchoolTeed.repository.ArchivoAlmacenadoRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Recolector de subidas huérfanas.
+ * Carga por lotes las rutas referenciadas por producto e imagen_producto (original y variantes),
+ * recorre file.upload-dir en streaming y borra los archivos sin referencia cuya última
+ * modificación supera el periodo de gracia (así no toca subidas cuya transacción aún no terminó).
+ * El recorrido va limitado a N archivos por segundo para no competir con la entrega de imágenes,
+ * y corre en un hilo propio: el scheduler por defecto tiene un solo hilo y lo comparten las
+ * fronteras de promociones, las reservas y el snapshot del catálogo.
+ */
+@Service
+public class LimpiezaUploadsService {
+
+    private static final Logger log = LoggerFactory.getLogger(LimpiezaUploadsService.class);
+    private static final int TAMANO_LOTE = 2000;
+    private static final int MAX_DETALLE_REPORTE = 500;
+    private static final int MAX_TRABAJOS_RECORDADOS = 20;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StorageService storageService;
+    private final ArchivoEstaticoService archivoEstaticoService;
+    private final ArchivoAlmacenadoRepository archivoAlmacenadoRepository;
+    private final AtomicBoolean enCurso = new AtomicBoolean(false);
+    private final ThreadPoolTaskExecutor executor;
+
+    // Últimos barridos lanzados (id -> reporte futuro), para consultarlos desde el panel de administración
+    private final Map<String, Future<String>> trabajos = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Future<String>> eldest) {
+            return size() > MAX_TRABAJOS_RECORDADOS;
+        }
+    });
+
+    @Value("${file.gc.gracia-horas:24}")
+    private long graciaHoras;
+
+    @Value("${file.gc.archivos-por-segundo:200}")
+    private int archivosPorSegundo;
+
+    public LimpiezaUploadsService(JdbcTemplate jdbcTemplate,
+                                  StorageService storageService,
+                                  ArchivoEstaticoService archivoEstaticoService,
+                                  ArchivoAlmacenadoRepository archivoAlmacenadoRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.storageService = storageService;
+        this.archivoEstaticoService = archivoEstaticoService;
+        this.archivoAlmacenadoRepository = archivoAlmacenadoRepository;
+
+        // Un solo hilo propio: como enCurso admite un barrido a la vez, la cola nunca crece
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(1);
+        this.executor.setMaxPoolSize(1);
+        this.executor.setQueueCapacity(1);
+        this.executor.setThreadNamePrefix("limpieza-subidas-");
+        this.executor.initialize();
+    }
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdown();
+    }
+
+    // Solo encola el barrido: el hilo del scheduler queda libre de inmediato
+    @Scheduled(cron = "${file.gc.cron:0 30 3 * * *}")
+    public void limpiezaProgramada() {
+        if (iniciar(false) == null) {
+            log.warn("Limpieza de subidas programada omitida: ya hay una en curso");
+        }
+    }
+
+    /**
+     * Lanza el barrido en segundo plano y devuelve su id, o null si ya hay uno en curso.
+     * Con simulacion=true solo lista lo que borraría.
+     */
+    public String iniciar(boolean simulacion) {
+        if (!enCurso.compareAndSet(false, true)) {
+            return null;
+        }
+        String id = UUID.randomUUID().toString();
+        try {
+            trabajos.put(id, executor.submit(() -> limpiar(simulacion)));
+        } catch (RuntimeException e) {
+            enCurso.set(false);
+            throw e;
+        }
+        log.info("Limpieza de subidas {} lanzada (simulacion={})", id, simulacion);
+        return id;
+    }
+
+    /**
+     * Reporte de un barrido lanzado con iniciar: vacío mientras sigue en curso.
+     */
+    public Optional<String> reporte(String id) {
+        Future<String> trabajo = trabajos.get(id);
+        if (trabajo == null) {
+            throw new EntityNotFoundException("Limpieza de subidas no encontrada: " + id);
+        }
+        if (!trabajo.isDone()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(trabajo.get());
+        } catch (ExecutionException e) {
+            return Optional.of("ERROR: " + e.getCause().getMessage() + "\n");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.of("Limpieza interrumpida\n");
+        }
+    }
+
+    // Cuerpo del barrido; siempre en el executor propio y con enCurso ya tomado por iniciar
+    private String limpiar(boolean simulacion) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== REPORTE DE LIMPIEZA DE SUBIDAS").append(simulacion ? " (SIMULACIÓN)" : "").append(" ===\n");
+        sb.append("Fecha: ").append(LocalDateTime.now()).append("\n");
+        try {
+            // Las referencias se leen ANTES de recorrer: lo subido después es más nuevo que la gracia
+            Set<String> referenciados = cargarReferenciados();
+            Instant limite = Instant.now().minus(Duration.ofHours(graciaHoras));
+            Path raiz = storageService.load("");
+
+            long revisados = 0;
+            long huerfanos = 0;
+            long enGracia = 0;
+            long reutilizados = 0;
+            long bytes = 0;
+            long inicio = System.nanoTime();
+            List<String> detalle = new ArrayList<>();
+
+            try (Stream<Path> archivos = Files.walk(raiz)) {
+                Iterator<Path> it = archivos.iterator();
+                while (it.hasNext()) {
+                    Path ruta = it.next();
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = Files.readAttributes(ruta, BasicFileAttributes.class);
+                    } catch (NoSuchFileException e) {
+                        continue; // desapareció durante el recorrido (p.ej. temporal ya movido)
+                    }
+                    if (!attrs.isRegularFile()) continue;
+                    revisados++;
+                    esperarTurno(revisados, inicio);
+
+                    String nombre = raiz.relativize(ruta).toString().replace('\\', '/');
+                    if (referenciados.contains(nombre)) continue;
+                    if (attrs.lastModifiedTime().toInstant().isAfter(limite)) {
+                        enGracia++;
+                        continue;
+                    }
+
+                    if (!simulacion && !borrar(nombre, ruta, limite)) {
+                        reutilizados++;
+                        continue;
+                    }
+                    huerfanos++;
+                    bytes += attrs.size();
+                    if (detalle.size() < MAX_DETALLE_REPORTE) {
+                        detalle.add(nombre + " (" + attrs.size() + " bytes)");
+                    }
+                }
+            }
+
+            sb.append("Rutas referenciadas: ").append(referenciados.size()).append("\n");
+            sb.append("Archivos revisados: ").append(revisados).append("\n");
+            sb.append("Sin referencia dentro del periodo de gracia (").append(graciaHoras).append("h): ")
+                    .append(enGracia).append("\n");
+            if (!simulacion) {
+                sb.append("Reutilizados durante el barrido (no se borraron): ").append(reutilizados).append("\n");
+            }
+            sb.append(simulacion ? "Se borrarían: " : "Borrados: ").append(huerfanos)
+                    .append(" (").append(bytes / 1024).append(" KB)\n");
+            detalle.forEach(d -> sb.append(" - ").append(d).append("\n"));
+            if (huerfanos > detalle.size()) {
+                sb.append(" ... y ").append(huerfanos - detalle.size()).append(" más\n");
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Error en la limpieza de subidas", e);
+            sb.append("ERROR: ").append(e.getMessage()).append("\n");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sb.append("Limpieza interrumpida\n");
+        } finally {
+            enCurso.set(false);
+        }
+        String reporte = sb.toString();
+        log.info(reporte);
+        return reporte;
+    }
+
+    /**
+     * Borra una huérfana salvo que una subida la haya reutilizado desde que se leyeron sus atributos:
+     * la subida deduplicada renueva la fecha y luego registra la fila, así que se vuelve a mirar la fecha
+     * antes y después de borrar la fila, y la fila solo se borra si no tiene referencias.
+     * Devuelve false si el archivo se conservó.
+     */
+    private boolean borrar(String nombre, Path ruta, Instant limite) throws IOException {
+        if (modificadoDespuesDe(ruta, limite)) return false;
+        if (StorageService.esPorContenido(nombre)) {
+            if (archivoAlmacenadoRepository.borrarSinReferencias(nombre) == 0
+                    && archivoAlmacenadoRepository.existsById(nombre)) {
+                return false;
+            }
+            if (modificadoDespuesDe(ruta, limite)) return false;
+        }
+        Files.deleteIfExists(ruta);
+        archivoEstaticoService.invalidar(nombre);
+        log.debug("Subida huérfana borrada: {}", nombre);
+        return true;
+    }
+
+    private static boolean modificadoDespuesDe(Path ruta, Instant limite) throws IOException {
+        try {
+            return Files.getLastModifiedTime(ruta).toInstant().isAfter(limite);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    // Ritmo máximo de archivos por segundo: duerme lo que haga falta para no adelantarse
+    private void esperarTurno(long revisados, long inicioNanos) throws InterruptedException {
+        if (archivosPorSegundo <= 0) return;
+        long esperadoNanos = revisados * 1_000_000_000L / archivosPorSegundo;
+        long adelantoMs = (esperadoNanos - (System.nanoTime() - inicioNanos)) / 1_000_000;
+        if (adelantoMs > 0) {
+            Thread.sleep(adelantoMs);
+        }
+    }
+
+    // Rutas relativas referenciadas (original + variantes), leídas por keyset para no cargar entidades
+    private Set<String> cargarReferenciados() {
+        Set<String> rutas = new HashSet<>();
+        cargarTabla(rutas, "SELECT id_producto, image_url, image_thumb_url, image_card_url, image_detail_url " +
+                "FROM producto WHERE id_producto > ? ORDER BY id_producto LIMIT ?");
+        cargarTabla(rutas, "SELECT id, url, url_thumb, url_card, url_detail " +
+                "FROM imagen_producto WHERE id > ? ORDER BY id LIMIT ?");
+        return rutas;
+    }
+
+    private void cargarTabla(Set<String> rutas, String sql) {
+        int ultimoId = 0;
+        while (true) {
+            int[] maxId = {ultimoId};
+            int[] filas = {0};
+            jdbcTemplate.query(sql, rs -> {
+                filas[0]++;
+                maxId[0] = rs.getInt(1);
+                for (int col = 2; col <= 5; col++) {
+                    String ruta = StorageService.nombreDesdeUrl(rs.getString(col));
+                    if (ruta != null) rutas.add(ruta);
+                }
+            }, ultimoId, TAMANO_LOTE);
+            if (filas[0] < TAMANO_LOTE) return;
+            ultimoId = maxId[0];
+        }
+    }
+}
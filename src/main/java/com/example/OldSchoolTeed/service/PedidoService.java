@@ -2,6 +2,8 @@ package com.example.OldSchoolTeed.service;
 
 import com.example.OldSchoolTeed.dto.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface PedidoService {
@@ -19,6 +21,8 @@ public interface PedidoService {
 
     List<PedidoResponse> getAllPedidosAdmin();
 
+    void streamAllPedidosAdmin(OutputStream out) throws IOException;
+
     PedidoResponse updatePedidoStatusAdmin(Integer pedidoId, AdminUpdatePedidoStatusRequest request);
 
     PedidoResponse updatePagoStatusAdmin(Integer pedidoId, AdminUpdatePagoRequest request);
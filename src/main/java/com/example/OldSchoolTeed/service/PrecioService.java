@@ -0,0 +1,95 @@
+package com.example.OldSchoolTeed.service;
+
+import com.example.OldSchoolTeed.entities.Producto;
+import com.example.OldSchoolTeed.entities.Promocion;
+import com.example.OldSchoolTeed.repository.ProductoRepository;
+import com.example.OldSchoolTeed.repository.PromocionRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Precio unitario efectivo (y descuento) de muchos productos a la vez, para el checkout y el carrito.
+ * Lee el precio materializado por PrecioVigenteService en una sola consulta; solo si a algún producto
+ * aún le falta se consultan sus promociones (una consulta más para todos ellos).
+ */
+@Service
+public class PrecioService {
+
+    private static final Logger log = LoggerFactory.getLogger(PrecioService.class);
+
+    private final ProductoRepository productoRepository;
+    private final PromocionRepository promocionRepository;
+
+    public PrecioService(ProductoRepository productoRepository, PromocionRepository promocionRepository) {
+        this.productoRepository = productoRepository;
+        this.promocionRepository = promocionRepository;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class PrecioUnitario {
+        private final BigDecimal precioOriginal;
+        private final BigDecimal precio;
+        private final BigDecimal descuento;
+    }
+
+    // 1 consulta por ids (solo columnas de precio); los productos inexistentes no aparecen en el mapa
+    @Transactional(readOnly = true)
+    public Map<Integer, PrecioUnitario> preciosPorIds(Collection<Integer> productoIds) {
+        if (productoIds == null || productoIds.isEmpty()) return Collections.emptyMap();
+        Map<Integer, PrecioUnitario> precios = new HashMap<>();
+        Map<Integer, BigDecimal> sinMaterializar = new HashMap<>();
+        for (Object[] fila : productoRepository.findPreciosByIds(productoIds)) {
+            Integer id = (Integer) fila[0];
+            BigDecimal precio = (BigDecimal) fila[1];
+            BigDecimal efectivo = (BigDecimal) fila[2];
+            if (efectivo != null) {
+                precios.put(id, new PrecioUnitario(precio, efectivo, fila[3] != null ? (BigDecimal) fila[3] : BigDecimal.ZERO));
+            } else {
+                sinMaterializar.put(id, precio);
+            }
+        }
+        calcularFaltantes(sinMaterializar, precios);
+        log.debug("Precios resueltos para {} productos", precios.size());
+        return precios;
+    }
+
+    // Productos ya cargados: sin consultas salvo para los que aún no tienen precio materializado
+    public Map<Integer, PrecioUnitario> preciosDe(Collection<Producto> productos) {
+        Map<Integer, PrecioUnitario> precios = new HashMap<>();
+        Map<Integer, BigDecimal> sinMaterializar = new HashMap<>();
+        for (Producto p : productos) {
+            if (p.getPrecioEfectivo() != null) {
+                precios.put(p.getIdProducto(), new PrecioUnitario(p.getPrecio(), p.getPrecioEfectivo(),
+                        p.getDescuentoVigente() != null ? p.getDescuentoVigente() : BigDecimal.ZERO));
+            } else {
+                sinMaterializar.put(p.getIdProducto(), p.getPrecio());
+            }
+        }
+        calcularFaltantes(sinMaterializar, precios);
+        return precios;
+    }
+
+    // Cálculo al vuelo con la mejor promoción vigente (1 consulta para todos los faltantes)
+    private void calcularFaltantes(Map<Integer, BigDecimal> preciosBase, Map<Integer, PrecioUnitario> destino) {
+        if (preciosBase.isEmpty()) return;
+        Map<Integer, List<Promocion>> promociones = new HashMap<>();
+        for (Object[] fila : promocionRepository.findByProductoIds(preciosBase.keySet())) {
+            promociones.computeIfAbsent((Integer) fila[0], k -> new ArrayList<>()).add((Promocion) fila[1]);
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        preciosBase.forEach((id, precioBase) -> {
+            PrecioVigenteService.PrecioVigente vigente = PrecioVigenteService.calcular(precioBase,
+                    promociones.getOrDefault(id, Collections.emptyList()), ahora);
+            destino.put(id, new PrecioUnitario(precioBase, vigente.getPrecio(), vigente.getDescuento()));
+        });
+    }
+}
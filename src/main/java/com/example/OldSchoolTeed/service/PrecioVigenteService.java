@@ -0,0 +1,217 @@
+package com.example.OldSchoolTeed.service;
+
+import com.example.OldSchoolTeed.entities.Producto;
+import com.example.OldSchoolTeed.entities.Promocion;
+import com.example.OldSchoolTeed.repository.ProductoRepository;
+import com.example.OldSchoolTeed.repository.PromocionRepository;
+import com.example.OldSchoolTeed.service.event.CatalogoModificadoEvent;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Materializa en Producto el precio efectivo (mejor promoción vigente).
+ * Conoce la próxima frontera (fechaInicio / fechaFin) de las promociones activas y
+ * programa el recálculo exactamente en ese instante, así las lecturas y el checkout
+ * solo leen precio_efectivo en lugar de consultar promociones en cada petición.
+ */
+@Service
+public class PrecioVigenteService {
+
+    private static final Logger log = LoggerFactory.getLogger(PrecioVigenteService.class);
+    private static final BigDecimal CIEN = new BigDecimal("100");
+    private static final int TAMANO_LOTE = 500;
+
+    private final ProductoRepository productoRepository;
+    private final PromocionRepository promocionRepository;
+    private final TaskScheduler taskScheduler;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate tx;
+
+    private ScheduledFuture<?> proximaEjecucion;
+    private LocalDateTime ultimaEvaluacion = LocalDateTime.now();
+
+    public PrecioVigenteService(ProductoRepository productoRepository,
+                                PromocionRepository promocionRepository,
+                                TaskScheduler taskScheduler,
+                                ApplicationEventPublisher eventPublisher,
+                                PlatformTransactionManager transactionManager) {
+        this.productoRepository = productoRepository;
+        this.promocionRepository = promocionRepository;
+        this.taskScheduler = taskScheduler;
+        this.eventPublisher = eventPublisher;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class PrecioVigente {
+        private final BigDecimal precio;
+        private final BigDecimal descuento;
+        private final String nombrePromocion;
+    }
+
+    //  CÁLCULO
+
+    // Mejor promoción activa en 'ahora' sobre el precio base; un descuento fuera de (0, 100] no compite
+    public static PrecioVigente calcular(BigDecimal precioOriginal, Collection<Promocion> promociones, LocalDateTime ahora) {
+        Optional<Promocion> mejor = promociones.stream()
+                .filter(p -> p.isActiva()
+                        && p.getDescuento() != null
+                        && p.getDescuento().compareTo(BigDecimal.ZERO) > 0
+                        && p.getDescuento().compareTo(CIEN) <= 0
+                        && !ahora.isBefore(p.getFechaInicio())
+                        && !ahora.isAfter(p.getFechaFin()))
+                .max(Comparator.comparing(Promocion::getDescuento));
+
+        if (mejor.isPresent() && precioOriginal != null) {
+            BigDecimal desc = mejor.get().getDescuento();
+            BigDecimal factor = desc.divide(CIEN, 4, RoundingMode.HALF_UP);
+            BigDecimal precio = precioOriginal.subtract(precioOriginal.multiply(factor)).setScale(2, RoundingMode.HALF_UP);
+            return new PrecioVigente(precio, desc, mejor.get().getDescripcion());
+        }
+        return new PrecioVigente(precioOriginal, BigDecimal.ZERO, null);
+    }
+
+    // Recalcula y guarda el precio efectivo (se une a la transacción del llamador)
+    @Transactional
+    public void recalcularProductos(Collection<Integer> productoIds) {
+        if (productoIds == null || productoIds.isEmpty()) return;
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Integer> ids = new ArrayList<>(new TreeSet<>(productoIds));
+
+        for (int desde = 0; desde < ids.size(); desde += TAMANO_LOTE) {
+            recalcularLote(ids.subList(desde, Math.min(desde + TAMANO_LOTE, ids.size())), ahora);
+        }
+        log.debug("Precio efectivo recalculado para {} productos", ids.size());
+    }
+
+    private void recalcularLote(List<Integer> lote, LocalDateTime ahora) {
+        Map<Integer, List<Promocion>> promocionesPorProducto = new HashMap<>();
+        for (Object[] fila : promocionRepository.findByProductoIds(lote)) {
+            promocionesPorProducto.computeIfAbsent((Integer) fila[0], k -> new ArrayList<>()).add((Promocion) fila[1]);
+        }
+
+        for (Producto producto : productoRepository.findAllById(lote)) {
+            PrecioVigente vigente = calcular(producto.getPrecio(),
+                    promocionesPorProducto.getOrDefault(producto.getIdProducto(), Collections.emptyList()), ahora);
+            aplicar(producto, vigente);
+        }
+    }
+
+    // Solo toca la entidad si algo cambió, para no generar UPDATEs inútiles
+    private void aplicar(Producto producto, PrecioVigente vigente) {
+        if (!mismoValor(producto.getPrecioEfectivo(), vigente.getPrecio())) {
+            producto.setPrecioEfectivo(vigente.getPrecio());
+        }
+        if (!mismoValor(producto.getDescuentoVigente(), vigente.getDescuento())) {
+            producto.setDescuentoVigente(vigente.getDescuento());
+        }
+        if (!Objects.equals(producto.getPromocionVigente(), vigente.getNombrePromocion())) {
+            producto.setPromocionVigente(vigente.getNombrePromocion());
+        }
+    }
+
+    private static boolean mismoValor(BigDecimal a, BigDecimal b) {
+        if (a == null || b == null) return a == b;
+        return a.compareTo(b) == 0;
+    }
+
+    //  PROGRAMACIÓN DE FRONTERAS
+
+    // Antes que el snapshot del catálogo, para que arranque con precios al día
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void inicializar() {
+        try {
+            // Una transacción por lote: el catálogo completo nunca queda entero en el contexto de persistencia
+            LocalDateTime ahora = LocalDateTime.now();
+            List<Integer> ids = new ArrayList<>(new TreeSet<>(productoRepository.findAllIds()));
+            for (int desde = 0; desde < ids.size(); desde += TAMANO_LOTE) {
+                List<Integer> lote = ids.subList(desde, Math.min(desde + TAMANO_LOTE, ids.size()));
+                tx.executeWithoutResult(status -> recalcularLote(lote, ahora));
+            }
+            log.info("Precio efectivo materializado para {} productos", ids.size());
+        } catch (Exception e) {
+            log.error("Error al materializar precios efectivos al iniciar", e);
+        }
+        reprogramar();
+    }
+
+    // Llamar tras crear/editar/desactivar una promoción
+    public void promocionModificada(Collection<Integer> productoIds) {
+        recalcularProductos(productoIds);
+        reprogramar();
+    }
+
+    // Red de seguridad: si la tarea programada se perdió, se recupera aquí
+    @Scheduled(cron = "0 */15 * * * *")
+    public void verificarFronteras() {
+        procesarFronteras();
+    }
+
+    public synchronized void reprogramar() {
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime proximoInicio = promocionRepository.findProximoInicio(ahora);
+        LocalDateTime proximoFin = promocionRepository.findProximoFin(ahora);
+        // Una promoción sigue vigente durante fechaFin; deja de estarlo justo después
+        LocalDateTime finExclusivo = proximoFin != null ? proximoFin.plusSeconds(1) : null;
+
+        LocalDateTime siguiente = proximoInicio;
+        if (finExclusivo != null && (siguiente == null || finExclusivo.isBefore(siguiente))) {
+            siguiente = finExclusivo;
+        }
+
+        if (proximaEjecucion != null) {
+            proximaEjecucion.cancel(false);
+            proximaEjecucion = null;
+        }
+        if (siguiente != null) {
+            proximaEjecucion = taskScheduler.schedule(this::procesarFronteras,
+                    siguiente.atZone(ZoneId.systemDefault()).toInstant());
+            log.info("Próximo recálculo de precios por promociones programado para {}", siguiente);
+        }
+    }
+
+    private void procesarFronteras() {
+        try {
+            LocalDateTime hasta = LocalDateTime.now();
+            LocalDateTime desde;
+            synchronized (this) {
+                desde = ultimaEvaluacion.minusSeconds(1);
+                ultimaEvaluacion = hasta;
+            }
+            tx.executeWithoutResult(status -> {
+                List<Integer> afectados = promocionRepository.findProductoIdsConFronteraEntre(desde, hasta);
+                if (!afectados.isEmpty()) {
+                    recalcularProductos(afectados);
+                    eventPublisher.publishEvent(CatalogoModificadoEvent.deProductos(afectados));
+                    log.info("Ventanas de promoción abiertas/cerradas: {} productos recalculados", afectados.size());
+                }
+            });
+        } catch (Exception e) {
+            log.error("Error al procesar fronteras de promociones", e);
+        } finally {
+            reprogramar();
+        }
+    }
+}
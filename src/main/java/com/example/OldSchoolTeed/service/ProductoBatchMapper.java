@@ -0,0 +1,155 @@
+package com.example.OldSchoolTeed.service;
+
+import com.example.OldSchoolTeed.dto.ProductoResponse;
+import com.example.OldSchoolTeed.dto.PromocionSimpleDto;
+import com.example.OldSchoolTeed.entities.ImagenProducto;
+import com.example.OldSchoolTeed.entities.Leyenda;
+import com.example.OldSchoolTeed.entities.Producto;
+import com.example.OldSchoolTeed.entities.Promocion;
+import com.example.OldSchoolTeed.repository.ImagenProductoRepository;
+import com.example.OldSchoolTeed.repository.InventarioRepository;
+import com.example.OldSchoolTeed.repository.LeyendaRepository;
+import com.example.OldSchoolTeed.repository.PromocionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Mapeo de productos a ProductoResponse por lotes.
+ * Hidrata una página completa con un número fijo de consultas (stock, promociones,
+ * galería y leyendas), sin importar cuántos productos traiga la lista.
+ * La categoría debe venir ya cargada (JOIN FETCH) en los productos recibidos.
+ */
+@Service
+public class ProductoBatchMapper {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductoBatchMapper.class);
+
+    private final InventarioRepository inventarioRepository;
+    private final PromocionRepository promocionRepository;
+    private final ImagenProductoRepository imagenProductoRepository;
+    private final LeyendaRepository leyendaRepository;
+
+    public ProductoBatchMapper(InventarioRepository inventarioRepository,
+                               PromocionRepository promocionRepository,
+                               ImagenProductoRepository imagenProductoRepository,
+                               LeyendaRepository leyendaRepository) {
+        this.inventarioRepository = inventarioRepository;
+        this.promocionRepository = promocionRepository;
+        this.imagenProductoRepository = imagenProductoRepository;
+        this.leyendaRepository = leyendaRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public ProductoResponse mapear(Producto producto) {
+        return mapear(List.of(producto)).get(0);
+    }
+
+    // Devuelve las respuestas en el mismo orden que la lista recibida
+    @Transactional(readOnly = true)
+    public List<ProductoResponse> mapear(List<Producto> productos) {
+        if (productos == null || productos.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Integer> ids = productos.stream()
+                .map(Producto::getIdProducto)
+                .distinct()
+                .collect(Collectors.toList());
+
+        // 1 consulta: stock
+        Map<Integer, Integer> stockPorProducto = new HashMap<>();
+        for (Object[] fila : inventarioRepository.findStockByProductoIds(ids)) {
+            stockPorProducto.put((Integer) fila[0], (Integer) fila[1]);
+        }
+
+        // 1 consulta: promociones asociadas (las activas se filtran en memoria)
+        Map<Integer, List<Promocion>> promocionesPorProducto = new HashMap<>();
+        for (Object[] fila : promocionRepository.findByProductoIds(ids)) {
+            promocionesPorProducto.computeIfAbsent((Integer) fila[0], k -> new ArrayList<>()).add((Promocion) fila[1]);
+        }
+
+        // 1 consulta: galería
+        Map<Integer, List<ProductoResponse.ImagenDto>> galeriaPorProducto = new HashMap<>();
+        for (ImagenProducto img : imagenProductoRepository.findByProductoIds(ids)) {
+            galeriaPorProducto.computeIfAbsent(img.getProducto().getIdProducto(), k -> new ArrayList<>())
+                    .add(new ProductoResponse.ImagenDto(img.getId(), img.getUrl(),
+                            img.getUrlThumb(), img.getUrlCard(), img.getUrlDetail()));
+        }
+
+        // 1 consulta: leyendas
+        Map<Integer, List<ProductoResponse.LeyendaDto>> leyendasPorProducto = new HashMap<>();
+        for (Leyenda l : leyendaRepository.findByProductoIds(ids)) {
+            leyendasPorProducto.computeIfAbsent(l.getProducto().getIdProducto(), k -> new ArrayList<>())
+                    .add(new ProductoResponse.LeyendaDto(l.getId(), l.getNombre(), l.getNumero()));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<ProductoResponse> respuestas = new ArrayList<>(productos.size());
+        for (Producto producto : productos) {
+            Integer id = producto.getIdProducto();
+            respuestas.add(construir(producto,
+                    stockPorProducto.getOrDefault(id, 0),
+                    promocionesPorProducto.getOrDefault(id, Collections.emptyList()),
+                    galeriaPorProducto.getOrDefault(id, new ArrayList<>()),
+                    leyendasPorProducto.getOrDefault(id, new ArrayList<>()),
+                    now));
+        }
+        log.debug("Mapeados {} productos por lotes", respuestas.size());
+        return respuestas;
+    }
+
+    private ProductoResponse construir(Producto producto,
+                                       Integer stock,
+                                       List<Promocion> promociones,
+                                       List<ProductoResponse.ImagenDto> galeria,
+                                       List<ProductoResponse.LeyendaDto> leyendas,
+                                       LocalDateTime now) {
+        BigDecimal precioOriginal = producto.getPrecio();
+
+        // Precio materializado por PrecioVigenteService; si aún no existe se calcula al vuelo
+        PrecioVigenteService.PrecioVigente vigente = producto.getPrecioEfectivo() != null
+                ? new PrecioVigenteService.PrecioVigente(producto.getPrecioEfectivo(),
+                        producto.getDescuentoVigente() != null ? producto.getDescuentoVigente() : BigDecimal.ZERO,
+                        producto.getPromocionVigente())
+                : PrecioVigenteService.calcular(precioOriginal, promociones, now);
+
+        List<PromocionSimpleDto> promocionesAsociadasDto = promociones.stream()
+                .map(promo -> PromocionSimpleDto.builder()
+                        .idPromocion(promo.getIdPromocion())
+                        .codigo(promo.getCodigo())
+                        .descripcion(promo.getDescripcion())
+                        .descuento(promo.getDescuento())
+                        .activa(promo.isActiva())
+                        .build())
+                .collect(Collectors.toList());
+
+        return ProductoResponse.builder()
+                .id(producto.getIdProducto())
+                .nombre(producto.getNombre())
+                .descripcion(producto.getDescripcion())
+                .talla(producto.getTalla() != null ? producto.getTalla().name() : "N/A")
+                .precio(vigente.getPrecio())
+                .activo(producto.getActivo())
+                .categoriaNombre(producto.getCategoria() != null ? producto.getCategoria().getNombre() : "Sin Categoría")
+                .stock(stock)
+                .imageUrl(producto.getImageUrl())
+                .imageThumbUrl(producto.getImageThumbUrl())
+                .imageCardUrl(producto.getImageCardUrl())
+                .imageDetailUrl(producto.getImageDetailUrl())
+                .galeriaImagenes(galeria)
+                .colorDorsal(producto.getColorDorsal())
+                .leyendas(leyendas)
+                .precioOriginal(precioOriginal)
+                .descuentoAplicado(vigente.getDescuento())
+                .nombrePromocion(vigente.getNombrePromocion())
+                .promocionesAsociadas(promocionesAsociadasDto)
+                .build();
+    }
+}
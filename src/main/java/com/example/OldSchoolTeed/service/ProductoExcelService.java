@@ -0,0 +1,159 @@
+package com.example.OldSchoolTeed.service;
+
+import com.example.OldSchoolTeed.entities.Producto;
+import com.example.OldSchoolTeed.repository.InventarioRepository;
+import com.example.OldSchoolTeed.repository.ProductoProveedorRepository;
+import com.example.OldSchoolTeed.repository.ProductoRepository;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Exportación del catálogo a Excel con el escritor en streaming de POI (SXSSF).
+ * Solo VENTANA_FILAS filas viven en memoria; el resto se vuelca a un temporal comprimido.
+ * Los productos se leen por lotes (keyset por id) con stock y costo de proveedor en bloque.
+ */
+@Service
+public class ProductoExcelService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductoExcelService.class);
+    private static final int VENTANA_FILAS = 100;
+    private static final int TAMANO_LOTE = 500;
+
+    private static final String[] CABECERAS = {
+            "ID", "Nombre", "Categoría", "Talla", "Color dorsal", "Activo",
+            "Precio base", "Precio efectivo", "Descuento (%)", "Promoción vigente",
+            "Stock", "Proveedores", "Costo proveedor (mín.)"
+    };
+    private static final int[] ANCHOS = {8, 40, 20, 8, 14, 8, 12, 14, 13, 30, 8, 40, 20};
+
+    private final ProductoRepository productoRepository;
+    private final InventarioRepository inventarioRepository;
+    private final ProductoProveedorRepository productoProveedorRepository;
+    private final TransactionTemplate lecturaTx;
+
+    public ProductoExcelService(ProductoRepository productoRepository,
+                                InventarioRepository inventarioRepository,
+                                ProductoProveedorRepository productoProveedorRepository,
+                                PlatformTransactionManager transactionManager) {
+        this.productoRepository = productoRepository;
+        this.inventarioRepository = inventarioRepository;
+        this.productoProveedorRepository = productoProveedorRepository;
+        this.lecturaTx = new TransactionTemplate(transactionManager);
+        this.lecturaTx.setReadOnly(true);
+    }
+
+    public void exportarProductos(OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(VENTANA_FILAS);
+        workbook.setCompressTempFiles(true);
+        try {
+            SXSSFSheet hoja = workbook.createSheet("Productos");
+            escribirCabecera(workbook, hoja);
+
+            CellStyle estiloMoneda = workbook.createCellStyle();
+            estiloMoneda.setDataFormat(workbook.createDataFormat().getFormat("#,##0.00"));
+
+            int[] fila = {1};
+            Integer ultimoId = 0;
+            while (true) {
+                final Integer desde = ultimoId;
+                // Cada lote en su propia transacción corta; las filas ya escritas salen a disco
+                Integer siguiente = lecturaTx.execute(status -> escribirLote(hoja, estiloMoneda, desde, fila));
+                if (siguiente == null) {
+                    break;
+                }
+                ultimoId = siguiente;
+            }
+
+            workbook.write(out);
+            log.info("Excel de productos generado con {} filas", fila[0] - 1);
+        } finally {
+            // Borra los temporales de SXSSF aunque la escritura haya fallado
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private void escribirCabecera(SXSSFWorkbook workbook, SXSSFSheet hoja) {
+        Font negrita = workbook.createFont();
+        negrita.setBold(true);
+        CellStyle estiloCabecera = workbook.createCellStyle();
+        estiloCabecera.setFont(negrita);
+
+        Row cabecera = hoja.createRow(0);
+        for (int i = 0; i < CABECERAS.length; i++) {
+            cabecera.createCell(i).setCellValue(CABECERAS[i]);
+            cabecera.getCell(i).setCellStyle(estiloCabecera);
+            hoja.setColumnWidth(i, ANCHOS[i] * 256);
+        }
+        hoja.createFreezePane(0, 1);
+    }
+
+    // Devuelve el último id escrito, o null si ya no quedan productos
+    private Integer escribirLote(SXSSFSheet hoja, CellStyle estiloMoneda, Integer desde, int[] fila) {
+        List<Producto> productos = productoRepository.findLoteConCategoria(desde, PageRequest.of(0, TAMANO_LOTE));
+        if (productos.isEmpty()) {
+            return null;
+        }
+        List<Integer> ids = productos.stream().map(Producto::getIdProducto).collect(Collectors.toList());
+
+        Map<Integer, Integer> stockPorProducto = new HashMap<>();
+        for (Object[] f : inventarioRepository.findStockByProductoIds(ids)) {
+            stockPorProducto.put((Integer) f[0], (Integer) f[1]);
+        }
+
+        Map<Integer, List<String>> proveedoresPorProducto = new HashMap<>();
+        Map<Integer, BigDecimal> costoMinimoPorProducto = new HashMap<>();
+        for (Object[] f : productoProveedorRepository.findCostosByProductoIds(ids)) {
+            Integer id = (Integer) f[0];
+            proveedoresPorProducto.computeIfAbsent(id, k -> new ArrayList<>()).add((String) f[1]);
+            BigDecimal costo = (BigDecimal) f[2];
+            if (costo != null) {
+                costoMinimoPorProducto.merge(id, costo, BigDecimal::min);
+            }
+        }
+
+        for (Producto p : productos) {
+            Integer id = p.getIdProducto();
+            Row row = hoja.createRow(fila[0]++);
+            int c = 0;
+            row.createCell(c++).setCellValue(id);
+            row.createCell(c++).setCellValue(Objects.toString(p.getNombre(), ""));
+            row.createCell(c++).setCellValue(p.getCategoria() != null ? p.getCategoria().getNombre() : "Sin Categoría");
+            row.createCell(c++).setCellValue(p.getTalla() != null ? p.getTalla().name() : "N/A");
+            row.createCell(c++).setCellValue(Objects.toString(p.getColorDorsal(), ""));
+            row.createCell(c++).setCellValue(Boolean.TRUE.equals(p.getActivo()) ? "Sí" : "No");
+            celdaMoneda(row, c++, p.getPrecio(), estiloMoneda);
+            celdaMoneda(row, c++, p.getPrecioEfectivo() != null ? p.getPrecioEfectivo() : p.getPrecio(), estiloMoneda);
+            row.createCell(c++).setCellValue(p.getDescuentoVigente() != null ? p.getDescuentoVigente().doubleValue() : 0);
+            row.createCell(c++).setCellValue(Objects.toString(p.getPromocionVigente(), ""));
+            row.createCell(c++).setCellValue(stockPorProducto.getOrDefault(id, 0));
+            row.createCell(c++).setCellValue(String.join(", ", proveedoresPorProducto.getOrDefault(id, List.of())));
+            celdaMoneda(row, c, costoMinimoPorProducto.get(id), estiloMoneda);
+        }
+        return productos.get(productos.size() - 1).getIdProducto();
+    }
+
+    private static void celdaMoneda(Row row, int columna, BigDecimal valor, CellStyle estilo) {
+        if (valor == null) {
+            row.createCell(columna);
+            return;
+        }
+        row.createCell(columna).setCellValue(valor.doubleValue());
+        row.getCell(columna).setCellStyle(estilo);
+    }
+}
@@ -0,0 +1,492 @@
+package com.example.OldSchoolTeed.service;
+
+import com.example.OldSchoolTeed.Config.exception.SolicitudInvalidaException;
+import com.example.OldSchoolTeed.dto.ImportacionProductosResponse;
+import com.example.OldSchoolTeed.entities.Categoria;
+import com.example.OldSchoolTeed.entities.Producto;
+import com.example.OldSchoolTeed.repository.CategoriaRepository;
+import com.example.OldSchoolTeed.service.event.CatalogoModificadoEvent;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Importación masiva de productos (con stock y leyendas) desde XLSX o CSV.
+ * El archivo se lee fila a fila (SAX para XLSX, registro a registro para CSV), cada fila se valida
+ * y las válidas se insertan por lotes con JDBC batch; las inválidas se reportan sin frenar el resto.
+ *
+ * Columnas (primera fila, sin importar mayúsculas/tildes/orden):
+ * nombre*, precio*, talla*, categoria* (nombre), descripcion, activo, color_dorsal, stock,
+ * leyendas ("NOMBRE:NUMERO|NOMBRE:NUMERO").
+ */
+@Service
+public class ProductoImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductoImportService.class);
+    private static final int TAMANO_LOTE = 500;
+    private static final int MAX_ERRORES_REPORTADOS = 1000;
+    private static final List<String> COLUMNAS_OBLIGATORIAS = List.of("nombre", "precio", "talla", "categoria");
+
+    private static final String SQL_PRODUCTO =
+            "INSERT INTO producto (nombre, descripcion, precio, talla, activo, color_dorsal, id_categoria, " +
+            "precio_efectivo, descuento_vigente) " +
+            "VALUES (:nombre, :descripcion, :precio, :talla, :activo, :colorDorsal, :idCategoria, :precio, 0)";
+    private static final String SQL_INVENTARIO =
+            "INSERT INTO inventario (id_producto, stock, ultima_actualizacion) VALUES (:idProducto, :stock, :ahora)";
+    private static final String SQL_LEYENDA =
+            "INSERT INTO leyenda (nombre, numero, producto_id) VALUES (:nombre, :numero, :idProducto)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final CategoriaRepository categoriaRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ProductoImportService(NamedParameterJdbcTemplate jdbcTemplate,
+                                 CategoriaRepository categoriaRepository,
+                                 ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.categoriaRepository = categoriaRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Transactional
+    public ImportacionProductosResponse importar(MultipartFile archivo) throws IOException {
+        if (archivo == null || archivo.isEmpty()) {
+            throw new SolicitudInvalidaException("El archivo está vacío");
+        }
+        long inicio = System.currentTimeMillis();
+        String nombreArchivo = StringUtils.defaultString(archivo.getOriginalFilename()).toLowerCase();
+
+        // Las categorías se resuelven por nombre en memoria (son pocas)
+        Map<String, Integer> categorias = new HashMap<>();
+        for (Categoria c : categoriaRepository.findAll()) {
+            categorias.put(normalizar(c.getNombre()), c.getIdCategoria());
+        }
+
+        Importacion importacion = new Importacion(categorias);
+        if (nombreArchivo.endsWith(".xlsx")) {
+            leerXlsx(archivo, importacion);
+        } else if (nombreArchivo.endsWith(".csv")) {
+            leerCsv(archivo, importacion);
+        } else {
+            throw new SolicitudInvalidaException("Formato no soportado. Use un archivo .xlsx o .csv");
+        }
+        importacion.vaciar();
+
+        if (importacion.creados > 0) {
+            eventPublisher.publishEvent(CatalogoModificadoEvent.completo());
+        }
+        long duracion = System.currentTimeMillis() - inicio;
+        log.info("Importación '{}': {} filas, {} productos creados, {} con error en {} ms",
+                archivo.getOriginalFilename(), importacion.leidas, importacion.creados, importacion.conError, duracion);
+
+        return ImportacionProductosResponse.builder()
+                .filasLeidas(importacion.leidas)
+                .productosCreados(importacion.creados)
+                .filasConError(importacion.conError)
+                .duracionMs(duracion)
+                .errores(importacion.errores)
+                .build();
+    }
+
+    //  LECTORES
+
+    private void leerXlsx(MultipartFile archivo, Importacion importacion) throws IOException {
+        // OPCPackage sobre archivo (y no sobre InputStream) evita descomprimir todo el libro en memoria
+        Path temporal = Files.createTempFile("importacion-productos-", ".xlsx");
+        try {
+            archivo.transferTo(temporal);
+            try (OPCPackage pkg = OPCPackage.open(temporal.toFile(), PackageAccess.READ)) {
+                XSSFReader reader = new XSSFReader(pkg);
+                ReadOnlySharedStringsTable textos = new ReadOnlySharedStringsTable(pkg);
+                StylesTable estilos = reader.getStylesTable();
+                Iterator<InputStream> hojas = reader.getSheetsData();
+                if (!hojas.hasNext()) {
+                    throw new SolicitudInvalidaException("El archivo Excel no contiene hojas");
+                }
+                try (InputStream hoja = hojas.next()) {
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(estilos, null, textos,
+                            new LectorFilasXlsx(importacion), new DataFormatter(), false));
+                    parser.parse(new InputSource(hoja));
+                }
+            } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+                throw new SolicitudInvalidaException("No se pudo leer el archivo Excel: " + e.getMessage());
+            }
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    private void leerCsv(MultipartFile archivo, Importacion importacion) throws IOException {
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(archivo.getInputStream(), StandardCharsets.UTF_8))) {
+            LectorRegistrosCsv lector = new LectorRegistrosCsv(br);
+            String registro;
+            char separador = ',';
+            boolean primero = true;
+            while ((registro = lector.siguiente()) != null) {
+                if (primero) {
+                    primero = false;
+                    registro = StringUtils.removeStart(registro, "\uFEFF");
+                    // Excel en español exporta CSV con ';'
+                    separador = StringUtils.countMatches(registro, ';') > StringUtils.countMatches(registro, ',') ? ';' : ',';
+                }
+                importacion.procesar(lector.lineaInicial(), dividirCsv(registro, separador));
+            }
+        }
+    }
+
+    /**
+     * Lee registros CSV completos: un campo entre comillas puede contener saltos de línea,
+     * así que se siguen juntando líneas mientras haya comillas sin cerrar.
+     * Un archivo que termina con comillas abiertas se rechaza indicando la línea donde empezó el registro.
+     */
+    static final class LectorRegistrosCsv {
+        private final BufferedReader br;
+        private int linea;
+        private int lineaInicial;
+
+        LectorRegistrosCsv(BufferedReader br) {
+            this.br = br;
+        }
+
+        String siguiente() throws IOException {
+            String actual = br.readLine();
+            if (actual == null) return null;
+            linea++;
+            lineaInicial = linea;
+            StringBuilder registro = new StringBuilder(actual);
+            // "" (comilla escapada) suma dos: un número impar de comillas = campo abierto
+            int comillas = StringUtils.countMatches(actual, '"');
+            while (comillas % 2 != 0) {
+                String siguiente = br.readLine();
+                if (siguiente == null) {
+                    throw new SolicitudInvalidaException("Comillas sin cerrar en el registro que empieza en la línea " + lineaInicial);
+                }
+                linea++;
+                registro.append('\n').append(siguiente);
+                comillas += StringUtils.countMatches(siguiente, '"');
+            }
+            return registro.toString();
+        }
+
+        // Línea física donde empieza el último registro leído (para reportar errores)
+        int lineaInicial() {
+            return lineaInicial;
+        }
+    }
+
+    // Separa un registro CSV respetando comillas ("a, b", saltos de línea y "" como comilla escapada)
+    static List<String> dividirCsv(String linea, char separador) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char ch = linea.charAt(i);
+            if (entreComillas) {
+                if (ch == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else if (ch == '"') {
+                    entreComillas = false;
+                } else {
+                    actual.append(ch);
+                }
+            } else if (ch == '"') {
+                entreComillas = true;
+            } else if (ch == separador) {
+                campos.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(ch);
+            }
+        }
+        campos.add(actual.toString());
+        return campos;
+    }
+
+    private static final class LectorFilasXlsx implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final Importacion importacion;
+        private final List<String> celdas = new ArrayList<>();
+        private int columnaActual;
+
+        LectorFilasXlsx(Importacion importacion) {
+            this.importacion = importacion;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            celdas.clear();
+            columnaActual = -1;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            importacion.procesar(rowNum + 1, celdas);
+        }
+
+        @Override
+        public void cell(String referencia, String valor, XSSFComment comentario) {
+            // Las celdas vacías no llegan: se rellenan los huecos para conservar la columna
+            int columna = referencia != null ? new CellReference(referencia).getCol() : columnaActual + 1;
+            while (celdas.size() < columna) {
+                celdas.add("");
+            }
+            celdas.add(valor);
+            columnaActual = columna;
+        }
+    }
+
+    //  VALIDACIÓN Y ESCRITURA
+
+    private static final class FilaValida {
+        String nombre;
+        String descripcion;
+        BigDecimal precio;
+        Producto.Talla talla;
+        boolean activo;
+        String colorDorsal;
+        Integer idCategoria;
+        int stock;
+        List<String[]> leyendas = new ArrayList<>();
+    }
+
+    private final class Importacion {
+        private final Map<String, Integer> categorias;
+        private Map<String, Integer> columnas;
+        private final List<FilaValida> pendientes = new ArrayList<>(TAMANO_LOTE);
+        private final List<ImportacionProductosResponse.ErrorFila> errores = new ArrayList<>();
+        private int leidas;
+        private int creados;
+        private int conError;
+
+        Importacion(Map<String, Integer> categorias) {
+            this.categorias = categorias;
+        }
+
+        void procesar(int numeroFila, List<String> celdas) {
+            if (celdas.stream().allMatch(StringUtils::isBlank)) {
+                return;
+            }
+            if (columnas == null) {
+                leerCabecera(celdas);
+                return;
+            }
+            leidas++;
+            try {
+                pendientes.add(validar(celdas));
+            } catch (IllegalArgumentException e) {
+                conError++;
+                if (errores.size() < MAX_ERRORES_REPORTADOS) {
+                    errores.add(new ImportacionProductosResponse.ErrorFila(numeroFila, e.getMessage()));
+                }
+                return;
+            }
+            if (pendientes.size() >= TAMANO_LOTE) {
+                vaciar();
+            }
+        }
+
+        private void leerCabecera(List<String> celdas) {
+            columnas = new HashMap<>();
+            for (int i = 0; i < celdas.size(); i++) {
+                columnas.putIfAbsent(normalizar(celdas.get(i)).replace(' ', '_'), i);
+            }
+            List<String> faltantes = COLUMNAS_OBLIGATORIAS.stream().filter(c -> !columnas.containsKey(c)).toList();
+            if (!faltantes.isEmpty()) {
+                throw new SolicitudInvalidaException("Faltan columnas obligatorias en la cabecera: " + faltantes);
+            }
+        }
+
+        private String valor(List<String> celdas, String columna) {
+            Integer i = columnas.get(columna);
+            return i != null && i < celdas.size() ? StringUtils.trimToNull(celdas.get(i)) : null;
+        }
+
+        private FilaValida validar(List<String> celdas) {
+            FilaValida f = new FilaValida();
+
+            f.nombre = valor(celdas, "nombre");
+            if (f.nombre == null) throw new IllegalArgumentException("El nombre es obligatorio");
+            if (f.nombre.length() > 150) throw new IllegalArgumentException("El nombre supera 150 caracteres");
+
+            f.descripcion = valor(celdas, "descripcion");
+            if (f.descripcion != null && f.descripcion.length() > 500) {
+                throw new IllegalArgumentException("La descripción supera 500 caracteres");
+            }
+
+            f.precio = parsearPrecio(valor(celdas, "precio"));
+
+            String talla = valor(celdas, "talla");
+            try {
+                f.talla = Producto.Talla.valueOf(StringUtils.defaultString(talla).toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Talla no válida: '" + talla + "'. Use S, M, L o XL");
+            }
+
+            String categoria = valor(celdas, "categoria");
+            f.idCategoria = categoria != null ? categorias.get(normalizar(categoria)) : null;
+            if (f.idCategoria == null) throw new IllegalArgumentException("Categoría no encontrada: '" + categoria + "'");
+
+            String activo = valor(celdas, "activo");
+            f.activo = activo == null || List.of("si", "true", "1", "activo", "x").contains(normalizar(activo));
+
+            f.colorDorsal = StringUtils.defaultIfBlank(valor(celdas, "color_dorsal"), "#000000");
+            if (f.colorDorsal.length() > 20) throw new IllegalArgumentException("El color dorsal supera 20 caracteres");
+
+            String stock = valor(celdas, "stock");
+            try {
+                f.stock = stock != null ? new BigDecimal(stock.replace(",", ".")).intValueExact() : 0;
+            } catch (ArithmeticException | NumberFormatException e) {
+                throw new IllegalArgumentException("Stock no válido: '" + stock + "'");
+            }
+            if (f.stock < 0) throw new IllegalArgumentException("El stock no puede ser negativo");
+
+            String leyendas = valor(celdas, "leyendas");
+            if (leyendas != null) {
+                for (String par : leyendas.split("\\|")) {
+                    if (StringUtils.isBlank(par)) continue;
+                    String[] partes = par.split(":", 2);
+                    if (partes.length != 2 || StringUtils.isAnyBlank(partes[0], partes[1])) {
+                        throw new IllegalArgumentException("Leyenda no válida: '" + par + "'. Use NOMBRE:NUMERO");
+                    }
+                    f.leyendas.add(new String[]{partes[0].trim().toUpperCase(), partes[1].trim()});
+                }
+            }
+            return f;
+        }
+
+        // Inserta el lote pendiente: productos (con ids generados), inventario y leyendas
+        void vaciar() {
+            if (pendientes.isEmpty()) return;
+
+            SqlParameterSource[] productos = pendientes.stream()
+                    .map(f -> new MapSqlParameterSource()
+                            .addValue("nombre", f.nombre)
+                            .addValue("descripcion", f.descripcion)
+                            .addValue("precio", f.precio)
+                            .addValue("talla", f.talla.name())
+                            .addValue("activo", f.activo)
+                            .addValue("colorDorsal", f.colorDorsal)
+                            .addValue("idCategoria", f.idCategoria))
+                    .toArray(SqlParameterSource[]::new);
+            KeyHolder claves = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(SQL_PRODUCTO, productos, claves, new String[]{"id_producto"});
+            List<Map<String, Object>> ids = claves.getKeyList();
+
+            Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+            List<SqlParameterSource> inventarios = new ArrayList<>(pendientes.size());
+            List<SqlParameterSource> leyendas = new ArrayList<>();
+            for (int i = 0; i < pendientes.size(); i++) {
+                FilaValida f = pendientes.get(i);
+                Integer idProducto = ((Number) ids.get(i).get("id_producto")).intValue();
+                inventarios.add(new MapSqlParameterSource()
+                        .addValue("idProducto", idProducto)
+                        .addValue("stock", f.stock)
+                        .addValue("ahora", ahora));
+                for (String[] l : f.leyendas) {
+                    leyendas.add(new MapSqlParameterSource()
+                            .addValue("nombre", l[0])
+                            .addValue("numero", l[1])
+                            .addValue("idProducto", idProducto));
+                }
+            }
+            jdbcTemplate.batchUpdate(SQL_INVENTARIO, inventarios.toArray(SqlParameterSource[]::new));
+            if (!leyendas.isEmpty()) {
+                jdbcTemplate.batchUpdate(SQL_LEYENDA, leyendas.toArray(SqlParameterSource[]::new));
+            }
+            creados += pendientes.size();
+            log.debug("Importación: lote de {} productos insertado", pendientes.size());
+            pendientes.clear();
+        }
+    }
+
+    /**
+     * Acepta "S/ 1.234,50", "$19.90", "19,9", "1.234.567".
+     * Con ambos separadores el último es el decimal. Con uno solo que aparece una vez y va seguido
+     * de exactamente tres dígitos ("1,234" / "1.234") no se puede saber si es de miles o decimal:
+     * la fila se rechaza en lugar de adivinar. Tampoco se redondea: más de 2 decimales es un error.
+     */
+    static BigDecimal parsearPrecio(String texto) {
+        if (texto == null) throw new IllegalArgumentException("El precio es obligatorio");
+        String limpio = texto.replaceAll("[^0-9,.-]", "");
+        int comas = StringUtils.countMatches(limpio, ',');
+        int puntos = StringUtils.countMatches(limpio, '.');
+        if (comas > 0 && puntos > 0) {
+            limpio = limpio.lastIndexOf(',') > limpio.lastIndexOf('.')
+                    ? limpio.replace(".", "").replace(",", ".")
+                    : limpio.replace(",", "");
+        } else if (comas + puntos == 1) {
+            int pos = Math.max(limpio.indexOf(','), limpio.indexOf('.'));
+            if (limpio.length() - pos - 1 == 3) {
+                throw new IllegalArgumentException("Precio ambiguo: '" + texto
+                        + "'. Use decimales explícitos (1234.00 o 1.234,00)");
+            }
+            limpio = limpio.replace(",", ".");
+        } else if (comas + puntos > 1) {
+            // Un solo tipo de separador repetido: solo puede ser de miles ("1.234.567")
+            if (!limpio.matches("-?\\d{1,3}([.,]\\d{3})+")) {
+                throw new IllegalArgumentException("Precio no válido: '" + texto + "'");
+            }
+            limpio = limpio.replaceAll("[.,]", "");
+        }
+        try {
+            BigDecimal precio = new BigDecimal(limpio);
+            if (precio.scale() > 2) {
+                throw new IllegalArgumentException("El precio admite como máximo 2 decimales: '" + texto + "'");
+            }
+            precio = precio.setScale(2, RoundingMode.UNNECESSARY);
+            if (precio.signum() <= 0) throw new IllegalArgumentException("El precio debe ser mayor a 0");
+            if (precio.precision() - precio.scale() > 8) {
+                throw new IllegalArgumentException("Precio fuera de rango: '" + texto + "'");
+            }
+            return precio;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Precio no válido: '" + texto + "'");
+        }
+    }
+
+    // Minúsculas y sin tildes, para comparar cabeceras y nombres de categoría
+    private static String normalizar(String texto) {
+        if (texto == null) return "";
+        String sinTildes = Normalizer.normalize(texto.trim(), Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return sinTildes.toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,11 +1,14 @@
 package com.example.OldSchoolTeed.service;
 
+import com.example.OldSchoolTeed.dto.ImportacionProductosResponse;
+import com.example.OldSchoolTeed.dto.ProductoFiltroRequest;
+import com.example.OldSchoolTeed.dto.ProductoPaginaResponse;
 import com.example.OldSchoolTeed.dto.ProductoRequest;
 import com.example.OldSchoolTeed.dto.ProductoResponse;
-import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface ProductoService {
@@ -16,12 +19,21 @@ public interface ProductoService {
 
     List<ProductoResponse> getAllProductosIncludingInactive();
 
+    // Igual que el anterior pero escrito como array JSON por lotes sobre 'out'
+    void streamAllProductosIncludingInactive(OutputStream out) throws IOException;
+
 
     ProductoResponse getProductoById(Integer id);
 
 
     List<ProductoResponse> getProductosByCategoria(String nombreCategoria);
 
+    // Listado paginado por cursor (keyset) con filtros y orden en la base de datos
+    ProductoPaginaResponse getProductosPaginados(ProductoFiltroRequest filtro);
+
+    // Igual que el anterior pero sin forzar activo=true
+    ProductoPaginaResponse getProductosPaginadosAdmin(ProductoFiltroRequest filtro);
+
     // MÉTODOS CRUD (Gestión de Productos) ---
     ProductoResponse createProducto(ProductoRequest request);
 
@@ -39,9 +51,13 @@ public interface ProductoService {
     void disassociatePromocionFromProducto(Integer productoId, Integer promocionId);
 
     // --- GESTIÓN DE IMÁGENES Y ARCHIVOS ---
-    //Genera un archivo Excel con el listado completo de productos para reportes.
+    //Genera un archivo Excel con el listado completo de productos para reportes,
+    // escribiéndolo directamente en 'out' (sin armar el libro completo en memoria).
 
-    Resource exportProductosToExcel() throws IOException;
+    void exportProductosToExcel(OutputStream out) throws IOException;
+
+    // Alta masiva de productos (con stock y leyendas) desde .xlsx o .csv; reporta errores por fila.
+    ImportacionProductosResponse importarProductos(MultipartFile archivo) throws IOException;
 
 
     // Sube o actualiza la imagen de portada (principal) del producto.
@@ -52,6 +68,10 @@ public interface ProductoService {
     ProductoResponse uploadGalleryImage(Integer id, MultipartFile file);
 
 
+    // Añade varias imágenes a la galería: se guardan en paralelo y se registran en una sola transacción.
+    ProductoResponse uploadGalleryImages(Integer id, List<MultipartFile> files);
+
+
      //Elimina una imagen específica de la galería secundaria
     void deleteGalleryImage(Integer productId, Integer imageId);
 }
\ No newline at end of file
@@ -0,0 +1,172 @@
+package com.example.OldSchoolTeed.service;
+
+import com.example.OldSchoolTeed.entities.Carrito;
+import com.example.OldSchoolTeed.entities.DetalleCarrito;
+import com.example.OldSchoolTeed.entities.Inventario;
+import com.example.OldSchoolTeed.entities.Producto;
+import com.example.OldSchoolTeed.entities.ReservaStock;
+import com.example.OldSchoolTeed.repository.InventarioRepository;
+import com.example.OldSchoolTeed.repository.ReservaStockRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Reservas temporales de stock para los carritos.
+ * Agregar al carrito reserva las unidades durante un TTL; el disponible para prometer de un producto
+ * es su stock menos las reservas vigentes. El checkout consume las reservas del carrito en lugar de
+ * volver a competir por el inventario, y un barrido periódico borra las vencidas por lotes.
+ */
+@Service
+public class ReservaStockService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservaStockService.class);
+    private static final int LOTE_BARRIDO = 1000;
+
+    private final ReservaStockRepository reservaStockRepository;
+    private final InventarioRepository inventarioRepository;
+    private final Duration ttl;
+
+    public ReservaStockService(ReservaStockRepository reservaStockRepository,
+                               InventarioRepository inventarioRepository,
+                               @Value("${carrito.reserva.ttl-minutos:15}") long ttlMinutos) {
+        this.reservaStockRepository = reservaStockRepository;
+        this.inventarioRepository = inventarioRepository;
+        this.ttl = Duration.ofMinutes(ttlMinutos);
+    }
+
+    /**
+     * Ajusta las reservas del carrito para los productos indicados a la cantidad que hoy tienen sus líneas
+     * (0 = se libera) y renueva el TTL de todas sus reservas vivas.
+     * Solo las reservas que crecen (o que vencieron) bloquean el inventario y validan el disponible.
+     */
+    @Transactional
+    public void sincronizar(Carrito carrito, Collection<Integer> productoIds) {
+        if (productoIds == null || productoIds.isEmpty()) return;
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime expira = ahora.plus(ttl);
+
+        Map<Integer, Integer> cantidades = cantidadesEnCarrito(carrito, productoIds);
+        Map<Integer, ReservaStock> actuales = reservasPorProducto(carrito);
+        verificarDisponible(carrito, sinCobertura(cantidades, actuales, ahora), cantidades, ahora);
+
+        Map<Integer, Producto> productos = productosDelCarrito(carrito);
+        for (Map.Entry<Integer, Integer> e : cantidades.entrySet()) {
+            ReservaStock reserva = actuales.get(e.getKey());
+            if (e.getValue() <= 0) {
+                if (reserva != null) reservaStockRepository.delete(reserva);
+            } else if (reserva == null) {
+                reservaStockRepository.save(new ReservaStock(null, carrito, productos.get(e.getKey()), e.getValue(), expira));
+            } else {
+                reserva.setCantidad(e.getValue());
+                reserva.setExpiraEn(expira);
+            }
+        }
+        reservaStockRepository.renovar(carrito, ahora, expira);
+    }
+
+    /**
+     * Checkout: cada línea debe estar cubierta por una reserva vigente. Si alguna venció se vuelve a
+     * validar contra el disponible; luego se borran las reservas del carrito, cuyo stock se descuenta
+     * del inventario en la misma transacción.
+     */
+    @Transactional
+    public void consumir(Carrito carrito) {
+        LocalDateTime ahora = LocalDateTime.now();
+        Map<Integer, Integer> cantidades = cantidadesEnCarrito(carrito, productosDelCarrito(carrito).keySet());
+        List<Integer> pendientes = sinCobertura(cantidades, reservasPorProducto(carrito), ahora);
+        if (!pendientes.isEmpty()) {
+            log.info("Checkout del carrito {}: {} productos sin reserva vigente, se revalidan", carrito.getIdCarrito(), pendientes.size());
+        }
+        verificarDisponible(carrito, pendientes, cantidades, ahora);
+        reservaStockRepository.deleteByCarrito(carrito);
+    }
+
+    @Scheduled(fixedDelayString = "${carrito.reserva.barrido-ms:60000}")
+    public void barrerVencidas() {
+        try {
+            LocalDateTime ahora = LocalDateTime.now();
+            int total = 0;
+            int borradas;
+            do {
+                borradas = reservaStockRepository.deleteVencidas(ahora, LOTE_BARRIDO);
+                total += borradas;
+            } while (borradas == LOTE_BARRIDO);
+            if (total > 0) log.info("Barrido de reservas de stock: {} reservas vencidas liberadas", total);
+        } catch (Exception e) {
+            log.error("Error al barrer reservas de stock vencidas", e);
+        }
+    }
+
+    //  HELPERS
+
+    // Bloquea el inventario de los productos (en orden) y compara contra stock - reservas vigentes de otros carritos
+    private void verificarDisponible(Carrito carrito, List<Integer> productoIds, Map<Integer, Integer> cantidades, LocalDateTime ahora) {
+        if (productoIds.isEmpty()) return;
+        Map<Integer, Inventario> inventarios = new HashMap<>();
+        for (Inventario i : inventarioRepository.findByProductoIdsForUpdate(productoIds)) {
+            inventarios.put(i.getProducto().getIdProducto(), i);
+        }
+        Map<Integer, Integer> reservadoPorOtros = new HashMap<>();
+        for (Object[] fila : reservaStockRepository.sumVigentesDeOtros(productoIds, carrito, ahora)) {
+            reservadoPorOtros.put((Integer) fila[0], ((Number) fila[1]).intValue());
+        }
+        for (Integer productoId : productoIds) {
+            Inventario inventario = inventarios.get(productoId);
+            if (inventario == null) throw new EntityNotFoundException("Inventario no encontrado para producto " + productoId);
+            int disponible = Math.max(0, inventario.getStock() - reservadoPorOtros.getOrDefault(productoId, 0));
+            if (disponible < cantidades.get(productoId)) {
+                throw new RuntimeException("Stock insuficiente para " + inventario.getProducto().getNombre() + ". Disponible: " + disponible);
+            }
+        }
+    }
+
+    // Productos cuya cantidad en el carrito no está cubierta por una reserva vigente, ordenados por id
+    private static List<Integer> sinCobertura(Map<Integer, Integer> cantidades, Map<Integer, ReservaStock> actuales, LocalDateTime ahora) {
+        List<Integer> pendientes = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> e : cantidades.entrySet()) {
+            ReservaStock r = actuales.get(e.getKey());
+            boolean cubierta = r != null && r.getExpiraEn().isAfter(ahora) && r.getCantidad() >= e.getValue();
+            if (e.getValue() > 0 && !cubierta) pendientes.add(e.getKey());
+        }
+        return pendientes;
+    }
+
+    private Map<Integer, ReservaStock> reservasPorProducto(Carrito carrito) {
+        Map<Integer, ReservaStock> reservas = new HashMap<>();
+        for (ReservaStock r : reservaStockRepository.findByCarrito(carrito)) {
+            reservas.put(r.getProducto().getIdProducto(), r);
+        }
+        return reservas;
+    }
+
+    // Suma de las líneas del carrito por producto (TreeMap: recorrido en orden de id)
+    private static Map<Integer, Integer> cantidadesEnCarrito(Carrito carrito, Collection<Integer> productoIds) {
+        Map<Integer, Integer> cantidades = new TreeMap<>();
+        productoIds.forEach(id -> cantidades.put(id, 0));
+        for (DetalleCarrito d : detalles(carrito)) {
+            cantidades.computeIfPresent(d.getProducto().getIdProducto(), (id, c) -> c + d.getCantidad());
+        }
+        return cantidades;
+    }
+
+    private static Map<Integer, Producto> productosDelCarrito(Carrito carrito) {
+        Map<Integer, Producto> productos = new HashMap<>();
+        for (DetalleCarrito d : detalles(carrito)) {
+            productos.putIfAbsent(d.getProducto().getIdProducto(), d.getProducto());
+        }
+        return productos;
+    }
+
+    private static List<DetalleCarrito> detalles(Carrito carrito) {
+        return carrito.getDetallesCarrito() != null ? carrito.getDetallesCarrito() : Collections.emptyList();
+    }
+}
@@ -1,15 +1,21 @@
 package com.example.OldSchoolTeed.service;
 
+import com.example.OldSchoolTeed.Config.exception.SolicitudInvalidaException;
 import com.example.OldSchoolTeed.entities.Producto; // Importar Producto
+import com.example.OldSchoolTeed.repository.ArchivoAlmacenadoRepository;
 import com.example.OldSchoolTeed.repository.ProductoRepository; // Importar ProductoRepository
+import com.example.OldSchoolTeed.service.event.ImagenSubidaEvent;
 
 import jakarta.annotation.PostConstruct; // Para init()
+import jakarta.annotation.PreDestroy;
 import jakarta.persistence.EntityNotFoundException; // Para manejo de errores
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value; // Para leer application.properties
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional; // Para updateProductImageUrl
 import org.springframework.util.StringUtils; // Para limpiar nombre de archivo
@@ -17,12 +23,26 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
 import java.util.UUID; // Para nombres únicos
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.regex.Pattern;
 
 @Service
 public class StorageService  {
@@ -30,15 +50,49 @@ public class StorageService  {
     private static final Logger log = LoggerFactory.getLogger(StorageService.class);
 
 
+    // ab/cd/<sha256>.<ext> (y sus variantes <sha256>_thumb.jpg, etc.)
+    private static final Pattern RUTA_POR_CONTENIDO = Pattern.compile("^[0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f]{64}[^/]*$");
+
     @Value("${file.upload-dir}")
     private String uploadDir;
 
+    // true: nombre por SHA-256 con deduplicación; false: nombre UUID como antes
+    @Value("${file.content-addressed:true}")
+    private boolean contentAddressed;
+
+    // Límite real del contenido (además del max-file-size del contenedor)
+    @Value("${file.subidas.max-bytes:10485760}")
+    private long maxBytes;
+
     private Path fileStorageLocation;
+    private Path temporales;
 
     private final ProductoRepository productoRepository;
+    private final ArchivoAlmacenadoRepository archivoAlmacenadoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ThreadPoolTaskExecutor executor;
 
-    public StorageService(ProductoRepository productoRepository) {
+    public StorageService(ProductoRepository productoRepository,
+                          ArchivoAlmacenadoRepository archivoAlmacenadoRepository,
+                          ApplicationEventPublisher eventPublisher,
+                          @Value("${file.subidas.hilos:4}") int hilos) {
         this.productoRepository = productoRepository;
+        this.archivoAlmacenadoRepository = archivoAlmacenadoRepository;
+        this.eventPublisher = eventPublisher;
+
+        // Pool propio y acotado para subidas múltiples; si se llena, guarda el hilo de la petición
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(hilos);
+        this.executor.setMaxPoolSize(hilos);
+        this.executor.setQueueCapacity(hilos * 8);
+        this.executor.setThreadNamePrefix("subidas-");
+        this.executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.initialize();
+    }
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdown();
     }
 
 
@@ -50,6 +104,8 @@ public class StorageService  {
             log.info("Directorio de almacenamiento de archivos configurado en: {}", this.fileStorageLocation);
             // Crear el directorio si no existe
             Files.createDirectories(this.fileStorageLocation);
+            // Temporales dentro del mismo volumen para que el move final sea atómico
+            this.temporales = Files.createDirectories(this.fileStorageLocation.resolve(".tmp"));
             log.info("Directorio de almacenamiento verificado/creado con éxito.");
         } catch (IOException ex) {
             log.error("Error al crear el directorio de almacenamiento de archivos en {}", this.uploadDir, ex);
@@ -70,15 +126,19 @@ public class StorageService  {
         if (originalFilename.contains("..")) {
             throw new IOException("Nombre de archivo contiene secuencia de ruta inválida: " + originalFilename);
         }
+        // El tamaño declarado se rechaza antes de leer nada; la lectura vuelve a contar los bytes reales
+        if (file.getSize() > maxBytes) {
+            throw new SolicitudInvalidaException("El archivo supera el máximo permitido de " + maxBytes + " bytes");
+        }
 
-        // Crear un nombre único para evitar sobreescritura y colisiones
-        String fileExtension = "";
-        try {
-            fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
-        } catch (Exception e) {
-            log.warn("No se pudo determinar la extensión del archivo: {}", originalFilename);
-            fileExtension = "";
+        // Una sola lectura del archivo: tipo real por magic bytes, tamaño y SHA-256
+        Inspeccion inspeccion = inspeccionar(file);
+        String fileExtension = inspeccion.extension;
+
+        if (contentAddressed) {
+            return storeFilePorContenido(file, inspeccion);
         }
+
         // Usar UUID para asegurar unicidad
         String uniqueFilename = UUID.randomUUID().toString() + fileExtension;
         log.debug("Nombre de archivo único generado: {}", uniqueFilename);
@@ -89,12 +149,8 @@ public class StorageService  {
             Path targetLocation = this.fileStorageLocation.resolve(uniqueFilename);
             log.debug("Ruta destino del archivo: {}", targetLocation);
 
-
-            // Copiar el archivo al directorio destino
-            try (InputStream inputStream = file.getInputStream()) {
-                Files.copy(inputStream, targetLocation, StandardCopyOption.REPLACE_EXISTING);
-                log.info("Archivo guardado exitosamente en: {}", targetLocation);
-            }
+            moverAlDestino(file, targetLocation);
+            log.info("Archivo guardado exitosamente en: {}", targetLocation);
 
             return uniqueFilename; // Devolver solo el nombre único generado
 
@@ -104,6 +160,167 @@ public class StorageService  {
         }
     }
 
+    /**
+     * Guarda varios archivos en paralelo y devuelve sus nombres en el mismo orden.
+     * Si alguno falla se lanza la primera excepción; los ya guardados quedan para el recolector de huérfanos.
+     */
+    public List<String> storeFiles(List<MultipartFile> files) throws IOException {
+        List<CompletableFuture<String>> tareas = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            tareas.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return storeFile(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, executor));
+        }
+        try {
+            CompletableFuture.allOf(tareas.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            Throwable causa = e.getCause() instanceof UncheckedIOException u ? u.getCause() : e.getCause();
+            if (causa instanceof IOException io) throw io;
+            if (causa instanceof RuntimeException re) throw re;
+            throw new IOException("No se pudieron guardar los archivos", causa);
+        }
+        List<String> nombres = new ArrayList<>(tareas.size());
+        tareas.forEach(t -> nombres.add(t.join()));
+        return nombres;
+    }
+
+    // Guarda en ab/cd/<sha256>.<ext>; si el contenido ya existe no se escribe nada
+    private String storeFilePorContenido(MultipartFile file, Inspeccion inspeccion) throws IOException {
+        String sha256 = inspeccion.sha256;
+        String ruta = sha256.substring(0, 2) + "/" + sha256.substring(2, 4) + "/" + sha256 + inspeccion.extension;
+        try {
+            Path destino = load(ruta);
+            if (Files.exists(destino)) {
+                // Se renueva la fecha para que el recolector de huérfanos respete el periodo de gracia
+                Files.setLastModifiedTime(destino, FileTime.from(Instant.now()));
+                log.info("Contenido ya almacenado, se reutiliza {}", ruta);
+            } else {
+                Files.createDirectories(destino.getParent());
+                moverAlDestino(file, destino);
+                log.info("Archivo guardado exitosamente en: {}", destino);
+            }
+            archivoAlmacenadoRepository.registrar(ruta, sha256, inspeccion.tamano);
+            return ruta;
+        } catch (IOException ex) {
+            log.error("Error al guardar el archivo {}: {}", file.getOriginalFilename(), ex.getMessage(), ex);
+            throw new IOException("No se pudo guardar el archivo " + file.getOriginalFilename() + ". Por favor intente de nuevo.", ex);
+        }
+    }
+
+    /**
+     * El contenedor ya dejó la parte en disco (spring.servlet.multipart.location, dentro de
+     * file.upload-dir/.tmp): transferTo la renombra en vez de copiarla. El move final es atómico
+     * para que nunca se sirva un archivo a medio escribir.
+     */
+    private void moverAlDestino(MultipartFile file, Path destino) throws IOException {
+        Path temporal = temporales.resolve("subida-" + UUID.randomUUID() + ".tmp");
+        try {
+            file.transferTo(temporal.toFile());
+            try {
+                Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException carrera) {
+                // Otra subida del mismo contenido ganó: el resultado es idéntico
+                log.debug("{} fue escrito en paralelo por otra subida", destino);
+            }
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    /**
+     * Resultado de leer la subida una vez: extensión según el tipo real, tamaño y hash.
+     */
+    private static final class Inspeccion {
+        final String extension;
+        final long tamano;
+        final String sha256;
+
+        Inspeccion(String extension, long tamano, String sha256) {
+            this.extension = extension;
+            this.tamano = tamano;
+            this.sha256 = sha256;
+        }
+    }
+
+    // Lee el contenido una sola vez: detecta el tipo por magic bytes, cuenta bytes (con límite) y calcula el SHA-256
+    private Inspeccion inspeccionar(MultipartFile file) throws IOException {
+        MessageDigest digest = nuevoDigest();
+        byte[] buffer = new byte[64 * 1024];
+        long tamano = 0;
+        String extension = null;
+        try (InputStream in = file.getInputStream()) {
+            int leidos;
+            byte[] cabecera = in.readNBytes(12);
+            extension = extensionPorFirma(cabecera);
+            if (extension == null) {
+                throw new SolicitudInvalidaException("Tipo de archivo no soportado. Solo JPG, PNG, GIF o WEBP.");
+            }
+            digest.update(cabecera);
+            tamano = cabecera.length;
+            while ((leidos = in.read(buffer)) != -1) {
+                tamano += leidos;
+                if (tamano > maxBytes) {
+                    throw new SolicitudInvalidaException("El archivo supera el máximo permitido de " + maxBytes + " bytes");
+                }
+                digest.update(buffer, 0, leidos);
+            }
+        }
+        return new Inspeccion(extension, tamano, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    // Firma de los primeros bytes -> extensión; null si no es una imagen admitida
+    static String extensionPorFirma(byte[] b) {
+        if (b.length >= 3 && (b[0] & 0xFF) == 0xFF && (b[1] & 0xFF) == 0xD8 && (b[2] & 0xFF) == 0xFF) {
+            return ".jpg";
+        }
+        if (b.length >= 8 && (b[0] & 0xFF) == 0x89 && b[1] == 'P' && b[2] == 'N' && b[3] == 'G'
+                && b[4] == 0x0D && b[5] == 0x0A && b[6] == 0x1A && b[7] == 0x0A) {
+            return ".png";
+        }
+        if (b.length >= 6 && b[0] == 'G' && b[1] == 'I' && b[2] == 'F' && b[3] == '8'
+                && (b[4] == '7' || b[4] == '9') && b[5] == 'a') {
+            return ".gif";
+        }
+        if (b.length >= 12 && b[0] == 'R' && b[1] == 'I' && b[2] == 'F' && b[3] == 'F'
+                && b[8] == 'W' && b[9] == 'E' && b[10] == 'B' && b[11] == 'P') {
+            return ".webp";
+        }
+        return null;
+    }
+
+    private static MessageDigest nuevoDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible en la JVM", e);
+        }
+    }
+
+    // true si la ruta es de un archivo direccionado por contenido (su contenido nunca cambia)
+    public static boolean esPorContenido(String ruta) {
+        return ruta != null && RUTA_POR_CONTENIDO.matcher(ruta).matches();
+    }
+
+    /**
+     * Ajusta los contadores cuando una entidad cambia de imagen (cualquiera de los dos puede ser null).
+     * Se une a la transacción del llamador; los archivos sin registro (nombres UUID antiguos) se ignoran.
+     */
+    public void actualizarReferencias(String urlAnterior, String urlNueva) {
+        if (Objects.equals(urlAnterior, urlNueva)) return;
+        String anterior = nombreDesdeUrl(urlAnterior);
+        String nueva = nombreDesdeUrl(urlNueva);
+        if (nueva != null) {
+            archivoAlmacenadoRepository.incrementarReferencias(nueva);
+        }
+        if (anterior != null) {
+            archivoAlmacenadoRepository.decrementarReferencias(anterior);
+        }
+    }
+
 
     public Resource loadFileAsResource(String filename) throws MalformedURLException, IOException {
         try {
@@ -135,14 +352,35 @@ public class StorageService  {
                 });
 
         // Actualizar la URL y guardar
+        actualizarReferencias(producto.getImageUrl(), imageUrl);
         producto.setImageUrl(imageUrl);
+        producto.setImageThumbUrl(null);
+        producto.setImageCardUrl(null);
+        producto.setImageDetailUrl(null);
         productoRepository.save(producto);
+        String archivo = nombreDesdeUrl(imageUrl);
+        if (archivo != null) {
+            eventPublisher.publishEvent(ImagenSubidaEvent.portada(productId, archivo, imageUrl));
+        }
         log.info("ImageUrl actualizada con éxito para Producto ID {}", productId);
     }
 
 
+    // Nombre relativo dentro de file.upload-dir a partir de la URL pública (null si no es un archivo propio)
+    public static String nombreDesdeUrl(String url) {
+        if (url == null) return null;
+        int i = url.indexOf("/uploads/");
+        return i >= 0 && i + 9 < url.length() ? url.substring(i + 9) : null;
+    }
+
+
     public Path load(String filename) {
         // Método helper para obtener la ruta completa
-        return this.fileStorageLocation.resolve(filename).normalize();
+        Path ruta = this.fileStorageLocation.resolve(filename).normalize();
+        // Con subdirectorios (ab/cd/...) hay que impedir que una ruta salga del directorio de subidas
+        if (!ruta.startsWith(this.fileStorageLocation)) {
+            throw new IllegalArgumentException("Ruta de archivo inválida: " + filename);
+        }
+        return ruta;
     }
 }
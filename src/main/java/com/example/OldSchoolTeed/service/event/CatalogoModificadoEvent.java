@@ -0,0 +1,44 @@
+package com.example.OldSchoolTeed.service.event;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Se publica cuando una escritura cambia datos visibles del catálogo.
+ * Los listeners lo procesan después del commit (ver CatalogoSnapshotService).
+ * - productoIds: productos afectados (se recargan solo esos).
+ * - completo: el cambio afecta a todo el catálogo (p.ej. renombrar una categoría).
+ * Sin productos y sin completo (metadatos()) solo cambia la versión del catálogo.
+ */
+@Getter
+public class CatalogoModificadoEvent {
+
+    private final Set<Integer> productoIds;
+    private final boolean completo;
+
+    private CatalogoModificadoEvent(Set<Integer> productoIds, boolean completo) {
+        this.productoIds = productoIds;
+        this.completo = completo;
+    }
+
+    public static CatalogoModificadoEvent deProductos(Collection<Integer> productoIds) {
+        return new CatalogoModificadoEvent(Collections.unmodifiableSet(new TreeSet<>(productoIds)), false);
+    }
+
+    public static CatalogoModificadoEvent deProducto(Integer productoId) {
+        return deProductos(Set.of(productoId));
+    }
+
+    // Cambios que no tocan productos (nueva categoría, promoción sin productos)
+    public static CatalogoModificadoEvent metadatos() {
+        return new CatalogoModificadoEvent(Collections.emptySet(), false);
+    }
+
+    public static CatalogoModificadoEvent completo() {
+        return new CatalogoModificadoEvent(Collections.emptySet(), true);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.OldSchoolTeed.service.event;
+
+import com.example.OldSchoolTeed.dto.ProductoResponse;
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lo publica CatalogoSnapshotService cada vez que instala un snapshot nuevo.
+ * Los índices derivados (búsqueda, facetas) se actualizan a partir de él sin ir a la base de datos.
+ * - productos: todos los productos del snapshot nuevo (inmutable, ordenado por id).
+ * - productoIds: productos que cambiaron (vacío si completo).
+ * - completo: el snapshot se reconstruyó entero.
+ * - contenidoCambiado: difiere del snapshot anterior (una reconstrucción completa puede no cambiar nada).
+ */
+@Getter
+public class CatalogoSnapshotActualizadoEvent {
+
+    private final Map<Integer, ProductoResponse> productos;
+    private final Set<Integer> productoIds;
+    private final boolean completo;
+    private final boolean contenidoCambiado;
+
+    public CatalogoSnapshotActualizadoEvent(Map<Integer, ProductoResponse> productos, Set<Integer> productoIds,
+                                            boolean completo, boolean contenidoCambiado) {
+        this.productos = productos;
+        this.productoIds = productoIds;
+        this.completo = completo;
+        this.contenidoCambiado = contenidoCambiado;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.OldSchoolTeed.service.event;
+
+import lombok.Getter;
+
+/**
+ * Se publica al guardar una imagen de producto (portada o galería).
+ * Tras el commit, ImagenVarianteService genera sus variantes redimensionadas.
+ * - imagenId: null para la portada (Producto.imageUrl), id de ImagenProducto para la galería.
+ * - archivo: nombre relativo dentro de file.upload-dir.
+ * - url: URL pública guardada en la entidad (se usa para detectar si la imagen ya fue reemplazada).
+ */
+@Getter
+public class ImagenSubidaEvent {
+
+    private final Integer productoId;
+    private final Integer imagenId;
+    private final String archivo;
+    private final String url;
+
+    private ImagenSubidaEvent(Integer productoId, Integer imagenId, String archivo, String url) {
+        this.productoId = productoId;
+        this.imagenId = imagenId;
+        this.archivo = archivo;
+        this.url = url;
+    }
+
+    public static ImagenSubidaEvent portada(Integer productoId, String archivo, String url) {
+        return new ImagenSubidaEvent(productoId, null, archivo, url);
+    }
+
+    public static ImagenSubidaEvent galeria(Integer productoId, Integer imagenId, String archivo, String url) {
+        return new ImagenSubidaEvent(productoId, imagenId, archivo, url);
+    }
+}
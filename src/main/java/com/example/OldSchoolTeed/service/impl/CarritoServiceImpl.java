@@ -1,14 +1,17 @@
 package com.example.OldSchoolTeed.service.impl;
 
+import com.example.OldSchoolTeed.Config.exception.SolicitudInvalidaException;
 import com.example.OldSchoolTeed.dto.AddItemRequest;
+import com.example.OldSchoolTeed.dto.CarritoDeltaResponse;
+import com.example.OldSchoolTeed.dto.CarritoLoteRequest;
 import com.example.OldSchoolTeed.dto.CarritoResponse;
 import com.example.OldSchoolTeed.dto.DetalleCarritoResponse;
-import com.example.OldSchoolTeed.dto.ProductoResponse;
 import com.example.OldSchoolTeed.dto.UpdateCantidadRequest;
 import com.example.OldSchoolTeed.entities.*;
 import com.example.OldSchoolTeed.repository.*;
 import com.example.OldSchoolTeed.service.CarritoService;
-import com.example.OldSchoolTeed.service.ProductoService;
+import com.example.OldSchoolTeed.service.PrecioService;
+import com.example.OldSchoolTeed.service.ReservaStockService;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
@@ -17,11 +20,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.*;
 
 @Service
 public class CarritoServiceImpl implements CarritoService {
@@ -32,74 +31,30 @@ public class CarritoServiceImpl implements CarritoService {
     private final UsuarioRepository usuarioRepository;
     private final ProductoRepository productoRepository;
     private final InventarioRepository inventarioRepository;
-    private final ProductoService productoService;
+    private final PrecioService precioService;
+    private final ReservaStockService reservaStockService;
 
     public CarritoServiceImpl(CarritoRepository carritoRepository,
                               DetalleCarritoRepository detalleCarritoRepository,
                               UsuarioRepository usuarioRepository,
                               ProductoRepository productoRepository,
                               InventarioRepository inventarioRepository,
-                              ProductoService productoService) {
+                              PrecioService precioService,
+                              ReservaStockService reservaStockService) {
         this.carritoRepository = carritoRepository;
         this.detalleCarritoRepository = detalleCarritoRepository;
         this.usuarioRepository = usuarioRepository;
         this.productoRepository = productoRepository;
         this.inventarioRepository = inventarioRepository;
-        this.productoService = productoService;
+        this.precioService = precioService;
+        this.reservaStockService = reservaStockService;
     }
 
     //  LÓGICA DE MAPEO (Con Datos de Personalización)
     private CarritoResponse mapToCarritoResponse(Carrito carrito) {
         log.trace("Mapeando Carrito ID: {}", carrito.getIdCarrito());
         List<DetalleCarrito> detalles = carrito.getDetallesCarrito() != null ? carrito.getDetallesCarrito() : Collections.emptyList();
-
-        List<DetalleCarritoResponse> itemResponses = detalles.stream()
-                .map(detalle -> {
-                    ProductoResponse productoConDescuento;
-                    String imageUrl = null;
-                    int stockActual = 0;
-
-                    try {
-                        productoConDescuento = productoService.getProductoById(detalle.getProducto().getIdProducto());
-                        imageUrl = productoConDescuento.getImageUrl();
-                        Inventario inventario = inventarioRepository.findByProducto(detalle.getProducto()).orElse(null);
-                        if (inventario != null) stockActual = inventario.getStock();
-                    } catch (EntityNotFoundException e) {
-                        productoConDescuento = ProductoResponse.builder()
-                                .id(detalle.getProducto().getIdProducto())
-                                .nombre(detalle.getProducto().getNombre() + " (No disponible)")
-                                .precio(BigDecimal.ZERO).precioOriginal(BigDecimal.ZERO).build();
-                    }
-
-                    // Usar el subtotal inteligente de la entidad
-                    BigDecimal subtotalReal = detalle.getSubtotal();
-
-                    // Fallback para items antiguos sin precio base
-                    if (detalle.getPrecioBase() == null) {
-                        subtotalReal = productoConDescuento.getPrecio().multiply(BigDecimal.valueOf(detalle.getCantidad()));
-                    }
-
-                    return DetalleCarritoResponse.builder()
-                            .detalleCarritoId(detalle.getIdDetalleCarrito())
-                            .productoId(detalle.getProducto().getIdProducto())
-                            .productoNombre(detalle.getProducto().getNombre())
-                            .cantidad(detalle.getCantidad())
-                            .precioUnitario(detalle.getPrecioBase() != null ? detalle.getPrecioBase() : productoConDescuento.getPrecio())
-                            .subtotal(subtotalReal)
-                            .imageUrl(imageUrl)
-                            .stockActual(stockActual)
-
-                            // --- DATOS DE PERSONALIZACIÓN ---
-                            .personalizacionTipo(detalle.getPersonalizacionTipo())
-                            .personalizacionNombre(detalle.getPersonalizacionNombre())
-                            .personalizacionNumero(detalle.getPersonalizacionNumero())
-                            .personalizacionPrecio(detalle.getPersonalizacionPrecio())
-                            .parcheTipo(detalle.getParcheTipo())
-                            .parchePrecio(detalle.getParchePrecio())
-                            // -------------------------------
-                            .build();
-                })
-                .collect(Collectors.toList());
+        List<DetalleCarritoResponse> itemResponses = mapearDetalles(detalles);
 
         BigDecimal totalConDescuento = itemResponses.stream().map(DetalleCarritoResponse::getSubtotal).reduce(BigDecimal.ZERO, BigDecimal::add);
 
@@ -108,30 +63,303 @@ public class CarritoServiceImpl implements CarritoService {
                 .usuarioId(carrito.getUsuario().getIdUsuario())
                 .items(itemResponses)
                 .total(totalConDescuento)
+                .version(carrito.getVersion() != null ? carrito.getVersion() : 0L)
+                .build();
+    }
+
+    // Número fijo de consultas: los productos ya vienen con el carrito (JOIN FETCH), el stock en una sola consulta
+    // y el precio efectivo materializado en Producto (solo se consultan promociones si aún no existe).
+    private List<DetalleCarritoResponse> mapearDetalles(List<DetalleCarrito> detalles) {
+        Map<Integer, Producto> productos = new HashMap<>();
+        for (DetalleCarrito detalle : detalles) {
+            productos.putIfAbsent(detalle.getProducto().getIdProducto(), detalle.getProducto());
+        }
+        Map<Integer, Integer> stockPorProducto = new HashMap<>();
+        Map<Integer, BigDecimal> precioPorProducto = new HashMap<>();
+        if (!productos.isEmpty()) {
+            for (Object[] fila : inventarioRepository.findStockByProductoIds(productos.keySet())) {
+                stockPorProducto.put((Integer) fila[0], (Integer) fila[1]);
+            }
+            precioService.preciosDe(productos.values()).forEach((id, p) -> precioPorProducto.put(id, p.getPrecio()));
+        }
+
+        List<DetalleCarritoResponse> itemResponses = new ArrayList<>(detalles.size());
+        for (DetalleCarrito detalle : detalles) {
+            Producto producto = detalle.getProducto();
+            Integer productoId = producto.getIdProducto();
+            BigDecimal precioActual = precioPorProducto.get(productoId);
+
+            BigDecimal subtotalReal = subtotal(detalle, precioActual);
+
+            itemResponses.add(DetalleCarritoResponse.builder()
+                    .detalleCarritoId(detalle.getIdDetalleCarrito())
+                    .productoId(productoId)
+                    .productoNombre(producto.getNombre())
+                    .cantidad(detalle.getCantidad())
+                    .precioUnitario(detalle.getPrecioBase() != null ? detalle.getPrecioBase() : precioActual)
+                    .subtotal(subtotalReal)
+                    .imageUrl(producto.getImageUrl())
+                    .stockActual(stockPorProducto.getOrDefault(productoId, 0))
+
+                    // --- DATOS DE PERSONALIZACIÓN ---
+                    .personalizacionTipo(detalle.getPersonalizacionTipo())
+                    .personalizacionNombre(detalle.getPersonalizacionNombre())
+                    .personalizacionNumero(detalle.getPersonalizacionNumero())
+                    .personalizacionPrecio(detalle.getPersonalizacionPrecio())
+                    .parcheTipo(detalle.getParcheTipo())
+                    .parchePrecio(detalle.getParchePrecio())
+                    // -------------------------------
+                    .build());
+        }
+        return itemResponses;
+    }
+
+    /**
+     * Única fórmula de subtotal para el total persistido y el de la respuesta completa.
+     * Las líneas antiguas sin precio base se valoran al precio vigente, con personalización y parche incluidos.
+     */
+    private static BigDecimal subtotal(DetalleCarrito detalle, BigDecimal precioActual) {
+        if (detalle.getPrecioBase() != null) {
+            return detalle.getSubtotal();
+        }
+        BigDecimal unitario = precioActual != null ? precioActual : BigDecimal.ZERO;
+        if (detalle.getPersonalizacionPrecio() != null) unitario = unitario.add(detalle.getPersonalizacionPrecio());
+        if (detalle.getParchePrecio() != null) unitario = unitario.add(detalle.getParchePrecio());
+        return unitario.multiply(BigDecimal.valueOf(detalle.getCantidad()));
+    }
+
+    // Congela al precio vigente las líneas antiguas sin precio base; devuelve true si completó alguna
+    private boolean completarPreciosBase(List<DetalleCarrito> detalles) {
+        List<DetalleCarrito> pendientes = detalles.stream().filter(d -> d.getPrecioBase() == null).toList();
+        if (pendientes.isEmpty()) return false;
+        Map<Integer, PrecioService.PrecioUnitario> precios = precioService.preciosDe(pendientes.stream().map(DetalleCarrito::getProducto).toList());
+        for (DetalleCarrito detalle : pendientes) {
+            PrecioService.PrecioUnitario precio = precios.get(detalle.getProducto().getIdProducto());
+            detalle.setPrecioBase(precio != null ? precio.getPrecio() : detalle.getProducto().getPrecio());
+        }
+        log.info("Completado el precio base de {} líneas antiguas del carrito", pendientes.size());
+        return true;
+    }
+
+    // Solo la línea modificada + totales: no vuelve a mapear ni a preciar el resto del carrito
+    private CarritoDeltaResponse mapToDeltaResponse(Carrito carrito, DetalleCarrito modificado, Integer eliminadoId) {
+        return CarritoDeltaResponse.builder()
+                .carritoId(carrito.getIdCarrito())
+                .version(carrito.getVersion())
+                .total(carrito.getTotal())
+                .cantidadItems(carrito.getDetallesCarrito().size())
+                .item(modificado != null ? mapearDetalles(List.of(modificado)).get(0) : null)
+                .detalleEliminadoId(eliminadoId)
                 .build();
     }
 
+    // Solo desde operaciones que agregan items: es el único punto donde se persiste un carrito nuevo
     private Carrito getOrCreateCarrito(Usuario usuario) {
-        Optional<Carrito> carritoOpt = carritoRepository.findByUsuario(usuario);
-        return carritoOpt.orElseGet(() -> {
+        return bloquearCarrito(usuario).orElseGet(() -> {
             Carrito nuevoCarrito = new Carrito();
             nuevoCarrito.setUsuario(usuario);
             nuevoCarrito.setDetallesCarrito(new ArrayList<>());
+            nuevoCarrito.setTotal(BigDecimal.ZERO);
+            nuevoCarrito.setVersion(0L);
             return carritoRepository.save(nuevoCarrito);
         });
     }
 
+    /**
+     * Bloquea la fila del carrito (SELECT ... FOR UPDATE) y luego carga sus líneas con productos.
+     * Serializa las mutaciones concurrentes del mismo usuario para que el total incremental no se pierda.
+     */
+    private Optional<Carrito> bloquearCarrito(Usuario usuario) {
+        return carritoRepository.findByUsuarioForUpdate(usuario)
+                .flatMap(c -> carritoRepository.findByUsuarioWithDetails(usuario))
+                .map(c -> {
+                    // Líneas sin precio base o carritos anteriores al total incremental: se recalcula una vez desde sus líneas,
+                    // con el precio ya congelado para que coincida con el total de mapToCarritoResponse
+                    boolean completadas = completarPreciosBase(c.getDetallesCarrito());
+                    if (c.getTotal() == null || completadas) {
+                        c.setTotal(c.getDetallesCarrito().stream().map(DetalleCarrito::getSubtotal).reduce(BigDecimal.ZERO, BigDecimal::add));
+                    }
+                    if (c.getVersion() == null) c.setVersion(0L);
+                    return c;
+                });
+    }
+
+    private Carrito carritoExistente(String userEmail) {
+        Usuario usuario = usuarioRepository.findByEmail(userEmail).orElseThrow(() -> new EntityNotFoundException("Usuario no encontrado"));
+        return bloquearCarrito(usuario).orElseThrow(() -> new EntityNotFoundException("Carrito no encontrado"));
+    }
+
+    // Aplica la variación al total y avanza la versión (una vez por petición)
+    private void registrarCambio(Carrito carrito, BigDecimal variacion) {
+        carrito.setTotal(carrito.getTotal().add(variacion));
+        carrito.setVersion(carrito.getVersion() + 1);
+        carritoRepository.save(carrito);
+    }
+
+    // Solo lectura: si el usuario aún no tiene carrito se devuelve uno virtual vacío (se crea al agregar el primer item)
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public CarritoResponse getCarritoByUsuario(String userEmail) {
         Usuario usuario = usuarioRepository.findByEmail(userEmail).orElseThrow(() -> new EntityNotFoundException("Usuario no encontrado"));
-        Carrito carrito = getOrCreateCarrito(usuario);
-        return mapToCarritoResponse(carrito);
+        return carritoRepository.findByUsuarioWithDetails(usuario)
+                .map(this::mapToCarritoResponse)
+                .orElseGet(() -> carritoVacio(usuario));
+    }
+
+    private CarritoResponse carritoVacio(Usuario usuario) {
+        return CarritoResponse.builder()
+                .carritoId(null)
+                .usuarioId(usuario.getIdUsuario())
+                .items(new ArrayList<>())
+                .total(BigDecimal.ZERO)
+                .version(0L)
+                .build();
     }
 
     @Override
     @Transactional
     public CarritoResponse addItemToCarrito(String userEmail, @Valid AddItemRequest request) {
+        Carrito carrito = agregar(userEmail, request).carrito;
+        return mapToCarritoResponse(carrito);
+    }
+
+    @Override
+    @Transactional
+    public CarritoDeltaResponse addItemToCarritoDelta(String userEmail, @Valid AddItemRequest request) {
+        Mutacion m = agregar(userEmail, request);
+        return mapToDeltaResponse(m.carrito, m.detalle, null);
+    }
+
+    @Override
+    @Transactional
+    public CarritoResponse removeItemFromCarrito(String userEmail, Integer detalleCarritoId) {
+        return mapToCarritoResponse(eliminar(userEmail, detalleCarritoId).carrito);
+    }
+
+    @Override
+    @Transactional
+    public CarritoDeltaResponse removeItemFromCarritoDelta(String userEmail, Integer detalleCarritoId) {
+        return mapToDeltaResponse(eliminar(userEmail, detalleCarritoId).carrito, null, detalleCarritoId);
+    }
+
+    @Override
+    @Transactional
+    public CarritoResponse updateItemQuantity(String userEmail, Integer detalleCarritoId, @Valid UpdateCantidadRequest request) {
+        return mapToCarritoResponse(actualizar(userEmail, detalleCarritoId, request).carrito);
+    }
+
+    @Override
+    @Transactional
+    public CarritoDeltaResponse updateItemQuantityDelta(String userEmail, Integer detalleCarritoId, @Valid UpdateCantidadRequest request) {
+        Mutacion m = actualizar(userEmail, detalleCarritoId, request);
+        return mapToDeltaResponse(m.carrito, m.detalle, null);
+    }
+
+    /**
+     * Aplica todas las operaciones en memoria y en orden, ajusta la reserva de stock una vez por producto
+     * con el resultado final y guarda todo en la misma transacción (si algo falla no se aplica nada).
+     */
+    @Override
+    @Transactional
+    public CarritoResponse aplicarLote(String userEmail, @Valid CarritoLoteRequest request) {
+        List<CarritoLoteRequest.Operacion> operaciones = request.getOperaciones();
+        log.info("Lote de carrito: User {}, {} operaciones", userEmail, operaciones.size());
+
+        Usuario usuario = usuarioRepository.findByEmail(userEmail).orElseThrow(() -> new EntityNotFoundException("Usuario no encontrado"));
+
+        // 1 consulta: todos los productos que se agregan
+        Set<Integer> idsAgregar = new HashSet<>();
+        for (CarritoLoteRequest.Operacion op : operaciones) {
+            validarOperacion(op);
+            if (op.getTipo() == CarritoLoteRequest.TipoOperacion.AGREGAR) idsAgregar.add(op.getItem().getProductoId());
+        }
+        Map<Integer, Producto> productos = new HashMap<>();
+        for (Producto p : productoRepository.findAllById(idsAgregar)) {
+            productos.put(p.getIdProducto(), p);
+        }
+
+        Carrito carrito = idsAgregar.isEmpty()
+                ? bloquearCarrito(usuario).orElseThrow(() -> new EntityNotFoundException("Carrito no encontrado"))
+                : getOrCreateCarrito(usuario);
+        List<DetalleCarrito> detalles = carrito.getDetallesCarrito();
+
+        Set<Integer> productosAfectados = new HashSet<>();
+        List<DetalleCarrito> eliminados = new ArrayList<>();
+        for (CarritoLoteRequest.Operacion op : operaciones) {
+            switch (op.getTipo()) {
+                case AGREGAR -> {
+                    AddItemRequest item = op.getItem();
+                    Producto producto = productos.get(item.getProductoId());
+                    if (producto == null) throw new EntityNotFoundException("Producto no encontrado: " + item.getProductoId());
+                    agregarLinea(carrito, producto, item, buscarAgrupable(detalles, item));
+                    productosAfectados.add(producto.getIdProducto());
+                }
+                case ACTUALIZAR -> {
+                    DetalleCarrito detalle = lineaDelCarrito(detalles, op.getDetalleCarritoId());
+                    detalle.setCantidad(op.getCantidad());
+                    productosAfectados.add(detalle.getProducto().getIdProducto());
+                }
+                case ELIMINAR -> {
+                    DetalleCarrito detalle = lineaDelCarrito(detalles, op.getDetalleCarritoId());
+                    detalles.remove(detalle);
+                    eliminados.add(detalle);
+                    productosAfectados.add(detalle.getProducto().getIdProducto());
+                }
+            }
+        }
+
+        // Reserva de cada producto afectado según su cantidad final en el carrito (las eliminadas se liberan)
+        reservaStockService.sincronizar(carrito, productosAfectados);
+
+        detalleCarritoRepository.deleteAll(eliminados);
+        detalleCarritoRepository.saveAll(detalles);
+
+        // Muchas líneas cambiadas a la vez: el total se rehace en memoria una sola vez
+        BigDecimal total = detalles.stream().map(DetalleCarrito::getSubtotal).reduce(BigDecimal.ZERO, BigDecimal::add);
+        registrarCambio(carrito, total.subtract(carrito.getTotal()));
+        return mapToCarritoResponse(carrito);
+    }
+
+    private static void validarOperacion(CarritoLoteRequest.Operacion op) {
+        switch (op.getTipo()) {
+            case AGREGAR -> {
+                if (op.getItem() == null) throw new SolicitudInvalidaException("AGREGAR requiere 'item'");
+            }
+            case ACTUALIZAR -> {
+                if (op.getDetalleCarritoId() == null || op.getCantidad() == null) {
+                    throw new SolicitudInvalidaException("ACTUALIZAR requiere 'detalleCarritoId' y 'cantidad'");
+                }
+            }
+            case ELIMINAR -> {
+                if (op.getDetalleCarritoId() == null) throw new SolicitudInvalidaException("ELIMINAR requiere 'detalleCarritoId'");
+            }
+        }
+    }
+
+    // Solo se buscan líneas del propio carrito: un id ajeno se trata como inexistente
+    private static DetalleCarrito lineaDelCarrito(List<DetalleCarrito> detalles, Integer detalleCarritoId) {
+        return detalles.stream()
+                .filter(d -> detalleCarritoId.equals(d.getIdDetalleCarrito()))
+                .findFirst()
+                .orElseThrow(() -> new EntityNotFoundException("Item no encontrado: " + detalleCarritoId));
+    }
+
+    //  MUTACIONES (comunes a la respuesta completa y a la delta)
+
+    /**
+     * Carrito mutado y la línea afectada (null si se eliminó).
+     */
+    private static final class Mutacion {
+        final Carrito carrito;
+        final DetalleCarrito detalle;
+
+        Mutacion(Carrito carrito, DetalleCarrito detalle) {
+            this.carrito = carrito;
+            this.detalle = detalle;
+        }
+    }
+
+    private Mutacion agregar(String userEmail, AddItemRequest request) {
         log.info("Añadiendo item: User {}, Prod {}, Cant {}", userEmail, request.getProductoId(), request.getCantidad());
 
         Usuario usuario = usuarioRepository.findByEmail(userEmail).orElseThrow(() -> new EntityNotFoundException("Usuario no encontrado"));
@@ -139,71 +367,66 @@ public class CarritoServiceImpl implements CarritoService {
 
         if (request.getCantidad() == null || request.getCantidad() <= 0) throw new RuntimeException("Cantidad debe ser mayor a 0");
 
-        Inventario inventario = inventarioRepository.findByProducto(producto).orElseThrow(() -> new EntityNotFoundException("Inventario no encontrado"));
         Carrito carrito = getOrCreateCarrito(usuario);
         List<DetalleCarrito> detallesActuales = carrito.getDetallesCarrito() != null ? carrito.getDetallesCarrito() : new ArrayList<>();
 
-        //  LÓGICA DE AGRUPACIÓN INTELIGENTE
-        boolean esPersonalizado = request.getPersonalizacion() != null || request.getParche() != null;
-        DetalleCarrito itemExistente = null;
-
-        // Solo buscamos agrupar si NO es personalizado
-        if (!esPersonalizado) {
-            itemExistente = detallesActuales.stream()
-                    .filter(d -> d.getProducto().getIdProducto().equals(request.getProductoId())
-                            && d.getPersonalizacionTipo() == null
-                            && d.getParcheTipo() == null)
-                    .findFirst().orElse(null);
-        }
+        DetalleCarrito itemExistente = buscarAgrupable(detallesActuales, request);
 
-        // Validación de Stock Global
-        int cantidadEnCarrito = detallesActuales.stream()
-                .filter(d -> d.getProducto().getIdProducto().equals(request.getProductoId()))
-                .mapToInt(DetalleCarrito::getCantidad)
-                .sum();
+        BigDecimal antes = itemExistente != null ? itemExistente.getSubtotal() : BigDecimal.ZERO;
+        DetalleCarrito linea = agregarLinea(carrito, producto, request, itemExistente);
 
-        if (inventario.getStock() < (cantidadEnCarrito + request.getCantidad())) {
-            throw new RuntimeException("Stock insuficiente. Disponible: " + inventario.getStock());
-        }
+        // Reserva el total del producto en el carrito (valida contra stock - reservas de otros carritos)
+        reservaStockService.sincronizar(carrito, List.of(producto.getIdProducto()));
+        DetalleCarrito afectado = detalleCarritoRepository.save(linea);
+        BigDecimal variacion = afectado.getSubtotal().subtract(antes);
+
+        registrarCambio(carrito, variacion);
+        return new Mutacion(carrito, afectado);
+    }
 
+    //  LÓGICA DE AGRUPACIÓN INTELIGENTE: los items sin personalizar del mismo producto se suman en una sola línea
+    private DetalleCarrito buscarAgrupable(List<DetalleCarrito> detalles, AddItemRequest request) {
+        boolean esPersonalizado = request.getPersonalizacion() != null || request.getParche() != null;
+        if (esPersonalizado) return null;
+        return detalles.stream()
+                .filter(d -> d.getProducto().getIdProducto().equals(request.getProductoId())
+                        && d.getPersonalizacionTipo() == null
+                        && d.getParcheTipo() == null)
+                .findFirst().orElse(null);
+    }
+
+    // Suma a la línea existente o crea una nueva en el carrito (sin guardar)
+    private DetalleCarrito agregarLinea(Carrito carrito, Producto producto, AddItemRequest request, DetalleCarrito itemExistente) {
         if (itemExistente != null) {
             itemExistente.setCantidad(itemExistente.getCantidad() + request.getCantidad());
-            detalleCarritoRepository.save(itemExistente);
-        } else {
-            DetalleCarrito nuevo = new DetalleCarrito();
-            nuevo.setCarrito(carrito);
-            nuevo.setProducto(producto);
-            nuevo.setCantidad(request.getCantidad());
-            nuevo.setPrecioBase(producto.getPrecio());
-
-            // Guardar Personalización
-            if (request.getPersonalizacion() != null) {
-                nuevo.setPersonalizacionTipo(request.getPersonalizacion().getTipo());
-                nuevo.setPersonalizacionNombre(request.getPersonalizacion().getNombre());
-                nuevo.setPersonalizacionNumero(request.getPersonalizacion().getNumero());
-                nuevo.setPersonalizacionPrecio(request.getPersonalizacion().getPrecio());
-            }
-            // Guardar Parche
-            if (request.getParche() != null) {
-                nuevo.setParcheTipo(request.getParche().getTipo());
-                nuevo.setParchePrecio(request.getParche().getPrecio());
-            }
-
-            DetalleCarrito guardado = detalleCarritoRepository.save(nuevo);
-            if (carrito.getDetallesCarrito() == null) carrito.setDetallesCarrito(new ArrayList<>());
-            carrito.getDetallesCarrito().add(guardado);
+            return itemExistente;
+        }
+        DetalleCarrito nuevo = new DetalleCarrito();
+        nuevo.setCarrito(carrito);
+        nuevo.setProducto(producto);
+        nuevo.setCantidad(request.getCantidad());
+        nuevo.setPrecioBase(producto.getPrecio());
+
+        // Guardar Personalización
+        if (request.getPersonalizacion() != null) {
+            nuevo.setPersonalizacionTipo(request.getPersonalizacion().getTipo());
+            nuevo.setPersonalizacionNombre(request.getPersonalizacion().getNombre());
+            nuevo.setPersonalizacionNumero(request.getPersonalizacion().getNumero());
+            nuevo.setPersonalizacionPrecio(request.getPersonalizacion().getPrecio());
+        }
+        // Guardar Parche
+        if (request.getParche() != null) {
+            nuevo.setParcheTipo(request.getParche().getTipo());
+            nuevo.setParchePrecio(request.getParche().getPrecio());
         }
 
-        carritoRepository.save(carrito);
-        return mapToCarritoResponse(carritoRepository.findById(carrito.getIdCarrito()).get());
+        if (carrito.getDetallesCarrito() == null) carrito.setDetallesCarrito(new ArrayList<>());
+        carrito.getDetallesCarrito().add(nuevo);
+        return nuevo;
     }
 
-    @Override
-    @Transactional
-    public CarritoResponse removeItemFromCarrito(String userEmail, Integer detalleCarritoId) {
-        Usuario usuario = usuarioRepository.findByEmail(userEmail).orElseThrow(() -> new EntityNotFoundException("Usuario no encontrado"));
-        Carrito carrito = carritoRepository.findByUsuario(usuario).orElseThrow(() -> new EntityNotFoundException("Carrito no encontrado"));
-
+    private Mutacion eliminar(String userEmail, Integer detalleCarritoId) {
+        Carrito carrito = carritoExistente(userEmail);
         DetalleCarrito detalle = detalleCarritoRepository.findById(detalleCarritoId).orElseThrow(() -> new EntityNotFoundException("Item no encontrado"));
 
         if (!detalle.getCarrito().getIdCarrito().equals(carrito.getIdCarrito())) {
@@ -212,36 +435,26 @@ public class CarritoServiceImpl implements CarritoService {
 
         if(carrito.getDetallesCarrito() != null) carrito.getDetallesCarrito().removeIf(d -> d.getIdDetalleCarrito().equals(detalleCarritoId));
         detalleCarritoRepository.delete(detalle);
+        reservaStockService.sincronizar(carrito, List.of(detalle.getProducto().getIdProducto()));
 
-        return mapToCarritoResponse(carritoRepository.findById(carrito.getIdCarrito()).get());
+        registrarCambio(carrito, detalle.getSubtotal().negate());
+        return new Mutacion(carrito, null);
     }
 
-    @Override
-    @Transactional
-    public CarritoResponse updateItemQuantity(String userEmail, Integer detalleCarritoId, @Valid UpdateCantidadRequest request) {
-        Usuario usuario = usuarioRepository.findByEmail(userEmail).orElseThrow(() -> new EntityNotFoundException("Usuario no encontrado"));
-        Carrito carrito = carritoRepository.findByUsuario(usuario).orElseThrow(() -> new EntityNotFoundException("Carrito no encontrado"));
+    private Mutacion actualizar(String userEmail, Integer detalleCarritoId, UpdateCantidadRequest request) {
+        Carrito carrito = carritoExistente(userEmail);
         DetalleCarrito detalle = detalleCarritoRepository.findById(detalleCarritoId).orElseThrow(() -> new EntityNotFoundException("Item no encontrado"));
 
         if (!detalle.getCarrito().getIdCarrito().equals(carrito.getIdCarrito())) {
             throw new SecurityException("Acceso denegado");
         }
 
-        Inventario inv = inventarioRepository.findByProducto(detalle.getProducto()).orElseThrow(() -> new EntityNotFoundException("Inventario no encontrado"));
-
-        // Validar stock global
-        int otrosItems = carrito.getDetallesCarrito().stream()
-                .filter(d -> d.getProducto().getIdProducto().equals(detalle.getProducto().getIdProducto()) && !d.getIdDetalleCarrito().equals(detalleCarritoId))
-                .mapToInt(DetalleCarrito::getCantidad)
-                .sum();
-
-        if (inv.getStock() < (otrosItems + request.getNuevaCantidad())) {
-            throw new RuntimeException("Stock insuficiente");
-        }
-
+        BigDecimal antes = detalle.getSubtotal();
         detalle.setCantidad(request.getNuevaCantidad());
+        reservaStockService.sincronizar(carrito, List.of(detalle.getProducto().getIdProducto()));
         detalleCarritoRepository.save(detalle);
 
-        return mapToCarritoResponse(carritoRepository.findById(carrito.getIdCarrito()).get());
+        registrarCambio(carrito, detalle.getSubtotal().subtract(antes));
+        return new Mutacion(carrito, detalle);
     }
-}
\ No newline at end of file
+}
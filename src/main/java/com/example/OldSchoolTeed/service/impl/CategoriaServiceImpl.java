@@ -7,7 +7,9 @@ import com.example.OldSchoolTeed.dto.CategoriaResponse;
 import com.example.OldSchoolTeed.entities.Categoria;
 import com.example.OldSchoolTeed.repository.CategoriaRepository;
 import com.example.OldSchoolTeed.service.CategoriaService;
+import com.example.OldSchoolTeed.service.event.CatalogoModificadoEvent;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,9 +20,11 @@ import java.util.stream.Collectors;
 public class CategoriaServiceImpl implements CategoriaService {
 
     private final CategoriaRepository categoriaRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CategoriaServiceImpl(CategoriaRepository categoriaRepository) {
+    public CategoriaServiceImpl(CategoriaRepository categoriaRepository, ApplicationEventPublisher eventPublisher) {
         this.categoriaRepository = categoriaRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     //  Lógica de Mapeo
@@ -40,6 +44,7 @@ public class CategoriaServiceImpl implements CategoriaService {
         categoria.setDescripcion(request.getDescripcion());
 
         Categoria categoriaGuardada = categoriaRepository.save(categoria);
+        eventPublisher.publishEvent(CatalogoModificadoEvent.metadatos());
         return mapToCategoriaResponse(categoriaGuardada);
     }
 
@@ -53,6 +58,8 @@ public class CategoriaServiceImpl implements CategoriaService {
         categoria.setDescripcion(request.getDescripcion());
 
         Categoria categoriaActualizada = categoriaRepository.save(categoria);
+        // El nombre de la categoría viaja en cada ProductoResponse
+        eventPublisher.publishEvent(CatalogoModificadoEvent.completo());
         return mapToCategoriaResponse(categoriaActualizada);
     }
 
@@ -68,6 +75,7 @@ public class CategoriaServiceImpl implements CategoriaService {
         // }
 
         categoriaRepository.delete(categoria);
+        eventPublisher.publishEvent(CatalogoModificadoEvent.completo());
     }
 
     @Override
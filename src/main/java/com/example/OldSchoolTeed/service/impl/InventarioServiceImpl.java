@@ -7,10 +7,15 @@ import com.example.OldSchoolTeed.entities.Producto;
 import com.example.OldSchoolTeed.repository.InventarioRepository;
 import com.example.OldSchoolTeed.repository.ProductoRepository;
 import com.example.OldSchoolTeed.service.InventarioService;
+import com.example.OldSchoolTeed.service.JsonStreamingService;
+import com.example.OldSchoolTeed.service.event.CatalogoModificadoEvent;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -20,10 +25,15 @@ public class InventarioServiceImpl implements InventarioService {
 
     private final InventarioRepository inventarioRepository;
     private final ProductoRepository productoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JsonStreamingService jsonStreamingService;
 
-    public InventarioServiceImpl(InventarioRepository inventarioRepository, ProductoRepository productoRepository) {
+    public InventarioServiceImpl(InventarioRepository inventarioRepository, ProductoRepository productoRepository,
+                                 ApplicationEventPublisher eventPublisher, JsonStreamingService jsonStreamingService) {
         this.inventarioRepository = inventarioRepository;
         this.productoRepository = productoRepository;
+        this.eventPublisher = eventPublisher;
+        this.jsonStreamingService = jsonStreamingService;
     }
 
     @Override
@@ -39,6 +49,7 @@ public class InventarioServiceImpl implements InventarioService {
         inventario.setUltimaActualizacion(LocalDateTime.now());
 
         Inventario inventarioGuardado = inventarioRepository.save(inventario);
+        eventPublisher.publishEvent(CatalogoModificadoEvent.deProducto(producto.getIdProducto()));
 
         return mapToInventarioResponse(inventarioGuardado);
     }
@@ -51,6 +62,14 @@ public class InventarioServiceImpl implements InventarioService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public void streamTodoElInventario(OutputStream out) throws IOException {
+        jsonStreamingService.<Inventario, InventarioResponse>escribirArray(out,
+                inventarioRepository::findLoteConProducto,
+                Inventario::getIdInventario,
+                lote -> lote.stream().map(this::mapToInventarioResponse).collect(Collectors.toList()));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public InventarioResponse getInventarioPorProductoId(Integer productoId) {
@@ -3,22 +3,31 @@ package com.example.OldSchoolTeed.service.impl;
 import com.example.OldSchoolTeed.dto.*;
 import com.example.OldSchoolTeed.entities.*;
 import com.example.OldSchoolTeed.repository.*;
+import com.example.OldSchoolTeed.service.JsonStreamingService;
 import com.example.OldSchoolTeed.service.PedidoService;
-import com.example.OldSchoolTeed.service.ProductoService;
+import com.example.OldSchoolTeed.service.PrecioService;
+import com.example.OldSchoolTeed.service.ReservaStockService;
+import com.example.OldSchoolTeed.service.event.CatalogoModificadoEvent;
 import jakarta.persistence.EntityNotFoundException;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,7 +43,10 @@ public class PedidoServiceImpl implements PedidoService {
     private final EnvioRepository envioRepository;
     private final DetallePedidoRepository detallePedidoRepository;
     private final ProductoRepository productoRepository;
-    private final ProductoService productoService;
+    private final PrecioService precioService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JsonStreamingService jsonStreamingService;
+    private final ReservaStockService reservaStockService;
 
     public PedidoServiceImpl(PedidoRepository pedidoRepository,
                              UsuarioRepository usuarioRepository,
@@ -45,7 +57,10 @@ public class PedidoServiceImpl implements PedidoService {
                              EnvioRepository envioRepository,
                              DetallePedidoRepository detallePedidoRepository,
                              ProductoRepository productoRepository,
-                             ProductoService productoService) {
+                             PrecioService precioService,
+                             ApplicationEventPublisher eventPublisher,
+                             JsonStreamingService jsonStreamingService,
+                             ReservaStockService reservaStockService) {
         this.pedidoRepository = pedidoRepository;
         this.usuarioRepository = usuarioRepository;
         this.carritoRepository = carritoRepository;
@@ -55,7 +70,10 @@ public class PedidoServiceImpl implements PedidoService {
         this.envioRepository = envioRepository;
         this.detallePedidoRepository = detallePedidoRepository;
         this.productoRepository = productoRepository;
-        this.productoService = productoService;
+        this.precioService = precioService;
+        this.eventPublisher = eventPublisher;
+        this.jsonStreamingService = jsonStreamingService;
+        this.reservaStockService = reservaStockService;
     }
 
 
@@ -67,8 +85,12 @@ public class PedidoServiceImpl implements PedidoService {
             Usuario usuario = usuarioRepository.findByEmail(usuarioEmail)
                     .orElseThrow(() -> new EntityNotFoundException("Usuario no encontrado"));
 
-            Carrito carrito = carritoRepository.findByUsuario(usuario)
-                    .orElseThrow(() -> new EntityNotFoundException("Carrito no encontrado."));
+            // Sin fila de carrito = carrito virtual vacío (se persiste recién al agregar el primer item).
+            // Se bloquea el carrito ANTES que el inventario, el mismo orden que las mutaciones del carrito
+            // (carrito -> inventario), y las líneas se leen ya con el bloqueo tomado.
+            Carrito carrito = carritoRepository.findByUsuarioForUpdate(usuario)
+                    .flatMap(c -> carritoRepository.findByUsuarioWithDetails(usuario))
+                    .orElseThrow(() -> new RuntimeException("El carrito está vacío, no se puede crear un pedido."));
 
             List<DetalleCarrito> detallesCarrito = carrito.getDetallesCarrito();
 
@@ -80,30 +102,26 @@ public class PedidoServiceImpl implements PedidoService {
                 log.debug("Detalles del carrito cargados ({} items)", detallesCarrito.size());
             }
 
-            // Validar Stock
-            log.info("Validando stock para {} items...", detallesCarrito.size());
-            for (DetalleCarrito detalle : detallesCarrito) {
-                Integer productoId = detalle.getProducto().getIdProducto();
-                String productoNombre = detalle.getProducto().getNombre();
-                Integer cantidadRequerida = detalle.getCantidad();
-                Inventario inventario = inventarioRepository.findByProducto(detalle.getProducto())
-                        .orElseThrow(() -> new EntityNotFoundException("Inventario no encontrado para: " + productoNombre));
-                if (inventario.getStock() < cantidadRequerida) {
-                    String errorMsg = "Stock insuficiente. No hay " + cantidadRequerida + " unidades de: " + productoNombre + " (Disponibles: " + inventario.getStock() + ")";
-                    log.error("!!! ERROR DE STOCK: {} !!!", errorMsg);
-                    throw new RuntimeException(errorMsg);
-                }
-            }
-            log.info("Validación de stock completada.");
+            // Stock: bloqueo ordenado de las filas, consumo de las reservas y descuento en una sola sentencia.
+            // Se hace antes de preciar y crear el pedido para que un checkout sin stock falle barato.
+            log.info("Descontando stock para {} items...", detallesCarrito.size());
+            descontarStock(carrito, detallesCarrito);
+            log.info("Stock descontado.");
 
             // Calcular Total y Descuentos
             BigDecimal totalPedidoConDescuento = BigDecimal.ZERO;
             List<DetallePedidoInfo> detallesParaGuardar = new ArrayList<>();
             log.info("Calculando precios finales y descuentos...");
+            // 1 consulta: precio efectivo de todos los productos del carrito
+            Map<Integer, PrecioService.PrecioUnitario> precios = precioService.preciosPorIds(
+                    detallesCarrito.stream().map(d -> d.getProducto().getIdProducto()).collect(Collectors.toSet()));
             for(DetalleCarrito detalleCarrito : detallesCarrito) {
-                ProductoResponse productoDto = productoService.getProductoById(detalleCarrito.getProducto().getIdProducto());
-                BigDecimal precioUnitarioFinal = productoDto.getPrecio();
-                BigDecimal precioUnitarioOriginal = productoDto.getPrecioOriginal() != null ? productoDto.getPrecioOriginal() : precioUnitarioFinal;
+                PrecioService.PrecioUnitario precio = precios.get(detalleCarrito.getProducto().getIdProducto());
+                if (precio == null) {
+                    throw new EntityNotFoundException("Producto no encontrado con ID: " + detalleCarrito.getProducto().getIdProducto());
+                }
+                BigDecimal precioUnitarioFinal = precio.getPrecio();
+                BigDecimal precioUnitarioOriginal = precio.getPrecioOriginal() != null ? precio.getPrecioOriginal() : precioUnitarioFinal;
                 BigDecimal subtotalFinal = precioUnitarioFinal.multiply(BigDecimal.valueOf(detalleCarrito.getCantidad())).setScale(2, RoundingMode.HALF_UP);
                 BigDecimal montoDescuentoItem = (precioUnitarioOriginal.subtract(precioUnitarioFinal))
                         .multiply(BigDecimal.valueOf(detalleCarrito.getCantidad()))
@@ -155,8 +173,8 @@ public class PedidoServiceImpl implements PedidoService {
             log.debug("Envío guardado con ID: {}", envioGuardado.getIdEnvio());
 
 
-            // Crear Detalles de Pedido y Actualizar Stock
-            log.info("Creando Detalles de Pedido y actualizando stock...");
+            // Crear Detalles de Pedido
+            log.info("Creando Detalles de Pedido...");
             List<DetallePedido> detallesPedidoGuardados = new ArrayList<>();
             List<DetalleCarrito> detallesAEliminar = new ArrayList<>(detallesCarrito);
 
@@ -169,20 +187,18 @@ public class PedidoServiceImpl implements PedidoService {
                 detallePedido.setMontoDescuento(info.montoDescuento);
                 DetallePedido detallePedidoGuardado = detallePedidoRepository.save(detallePedido);
                 detallesPedidoGuardados.add(detallePedidoGuardado);
-
-                Inventario inventario = inventarioRepository.findByProducto(info.producto).get();
-                int stockAnterior = inventario.getStock();
-                int nuevoStock = stockAnterior - info.cantidad;
-                if (nuevoStock < 0) { throw new RuntimeException("Error crítico de stock al actualizar inventario."); }
-                inventario.setStock(nuevoStock);
-                inventarioRepository.save(inventario);
             }
+            // El stock cambió: refrescar esos productos en el catálogo tras el commit
+            eventPublisher.publishEvent(CatalogoModificadoEvent.deProductos(
+                    detallesParaGuardar.stream().map(info -> info.producto.getIdProducto()).collect(Collectors.toSet())));
 
             log.debug("Eliminando {} detalles del Carrito ID {}", detallesAEliminar.size(), carrito.getIdCarrito());
             detalleCarritoRepository.deleteAll(detallesAEliminar);
 
 
             carrito.getDetallesCarrito().clear();
+            carrito.setTotal(BigDecimal.ZERO);
+            carrito.setVersion(carrito.getVersion() != null ? carrito.getVersion() + 1 : 1L);
             carritoRepository.save(carrito);
             log.info("Todos los detalles movidos y carrito vaciado.");
 
@@ -202,6 +218,48 @@ public class PedidoServiceImpl implements PedidoService {
         }
     }
 
+    /**
+     * Descuenta el stock de todas las líneas del carrito sin leer-modificar-escribir en Java:
+     * 1) bloquea las filas de inventario en orden de id de producto; el carrito ya está bloqueado, así que
+     *    todo escritor toma carrito -> inventario (en ese orden) y no hay deadlocks,
+     * 2) consume las reservas del carrito (las vencidas se revalidan con las filas ya bloqueadas),
+     * 3) aplica un único UPDATE condicional (stock >= cantidad) para todos los productos.
+     * Si a algún producto no le alcanza, se informa cuál y la transacción completa se revierte.
+     */
+    private void descontarStock(Carrito carrito, List<DetalleCarrito> detallesCarrito) {
+        Map<Integer, Integer> cantidades = new TreeMap<>();
+        Map<Integer, String> nombres = new HashMap<>();
+        for (DetalleCarrito detalle : detallesCarrito) {
+            Integer productoId = detalle.getProducto().getIdProducto();
+            cantidades.merge(productoId, detalle.getCantidad(), Integer::sum);
+            nombres.putIfAbsent(productoId, detalle.getProducto().getNombre());
+        }
+
+        List<Integer> bloqueados = inventarioRepository.bloquearPorProductoIds(cantidades.keySet());
+        if (bloqueados.size() < cantidades.size()) {
+            Integer faltante = cantidades.keySet().stream().filter(id -> !bloqueados.contains(id)).findFirst().orElseThrow();
+            throw new EntityNotFoundException("Inventario no encontrado para: " + nombres.get(faltante));
+        }
+
+        reservaStockService.consumir(carrito);
+
+        int actualizados = inventarioRepository.descontarStock(
+                cantidades.keySet().toArray(new Integer[0]), cantidades.values().toArray(new Integer[0]));
+        if (actualizados < cantidades.size()) {
+            for (Object[] fila : inventarioRepository.findStockByProductoIds(cantidades.keySet())) {
+                Integer productoId = (Integer) fila[0];
+                Integer stock = (Integer) fila[1];
+                if (stock < cantidades.get(productoId)) {
+                    String errorMsg = "Stock insuficiente. No hay " + cantidades.get(productoId) + " unidades de: "
+                            + nombres.get(productoId) + " (Disponibles: " + stock + ")";
+                    log.error("!!! ERROR DE STOCK: {} !!!", errorMsg);
+                    throw new RuntimeException(errorMsg);
+                }
+            }
+            throw new RuntimeException("Error crítico de stock al actualizar inventario.");
+        }
+    }
+
     private static class DetallePedidoInfo {
         Producto producto;
         Integer cantidad;
@@ -259,6 +317,18 @@ public class PedidoServiceImpl implements PedidoService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public void streamAllPedidosAdmin(OutputStream out) throws IOException {
+        long total = jsonStreamingService.<Pedido, PedidoResponse>escribirArray(out,
+                (ultimoId, pagina) -> {
+                    List<Integer> ids = pedidoRepository.findIdsDesde(ultimoId, pagina);
+                    return ids.isEmpty() ? List.<Pedido>of() : pedidoRepository.findConDetallesByIds(ids);
+                },
+                Pedido::getIdPedido,
+                pedidos -> pedidos.stream().map(this::mapToPedidoResponse).collect(Collectors.toList()));
+        log.info("Admin: {} pedidos enviados en streaming.", total);
+    }
+
     @Override
     @Transactional
     public PedidoResponse updatePedidoStatusAdmin(Integer pedidoId, AdminUpdatePedidoStatusRequest request) {
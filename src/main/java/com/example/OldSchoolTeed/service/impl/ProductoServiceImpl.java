@@ -1,29 +1,40 @@
 package com.example.OldSchoolTeed.service.impl;
 
+import com.example.OldSchoolTeed.Config.exception.SolicitudInvalidaException;
+import com.example.OldSchoolTeed.dto.ImportacionProductosResponse;
+import com.example.OldSchoolTeed.dto.ProductoFiltroRequest;
+import com.example.OldSchoolTeed.dto.ProductoPaginaResponse;
 import com.example.OldSchoolTeed.dto.ProductoRequest;
 import com.example.OldSchoolTeed.dto.ProductoResponse;
-import com.example.OldSchoolTeed.dto.PromocionSimpleDto;
 import com.example.OldSchoolTeed.entities.*;
 import com.example.OldSchoolTeed.repository.*;
+import com.example.OldSchoolTeed.service.CatalogoSnapshotService;
+import com.example.OldSchoolTeed.service.JsonStreamingService;
+import com.example.OldSchoolTeed.service.PrecioVigenteService;
+import com.example.OldSchoolTeed.service.ProductoBatchMapper;
+import com.example.OldSchoolTeed.service.ProductoExcelService;
+import com.example.OldSchoolTeed.service.ProductoImportService;
 import com.example.OldSchoolTeed.service.ProductoService;
 import com.example.OldSchoolTeed.service.StorageService;
+import com.example.OldSchoolTeed.service.event.CatalogoModificadoEvent;
+import com.example.OldSchoolTeed.service.event.ImagenSubidaEvent;
 import jakarta.persistence.EntityNotFoundException;
-import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.time.LocalDateTime;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class ProductoServiceImpl implements ProductoService {
@@ -33,135 +44,223 @@ public class ProductoServiceImpl implements ProductoService {
     private final CategoriaRepository categoriaRepository;
     private final InventarioRepository inventarioRepository;
     private final PromocionRepository promocionRepository;
+    private final ImagenProductoRepository imagenProductoRepository;
     private final StorageService storageService;
+    private final ProductoBatchMapper productoBatchMapper;
+    private final CatalogoSnapshotService catalogoSnapshotService;
+    private final PrecioVigenteService precioVigenteService;
+    private final JsonStreamingService jsonStreamingService;
+    private final ProductoExcelService productoExcelService;
+    private final ProductoImportService productoImportService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate lecturaTx;
+    private final TransactionTemplate escrituraTx;
 
     // URL Base para imágenes (ajustada a tu configuración de API)
     private static final String BASE_URL = "http://localhost:8080/api/v1/uploads/";
+    private static final int MAX_IMAGENES_POR_LOTE = 24;
 
     public ProductoServiceImpl(ProductoRepository productoRepository,
                                CategoriaRepository categoriaRepository,
                                InventarioRepository inventarioRepository,
                                PromocionRepository promocionRepository,
-                               StorageService storageService) {
+                               ImagenProductoRepository imagenProductoRepository,
+                               StorageService storageService,
+                               ProductoBatchMapper productoBatchMapper,
+                               CatalogoSnapshotService catalogoSnapshotService,
+                               PrecioVigenteService precioVigenteService,
+                               JsonStreamingService jsonStreamingService,
+                               ProductoExcelService productoExcelService,
+                               ProductoImportService productoImportService,
+                               ApplicationEventPublisher eventPublisher,
+                               PlatformTransactionManager transactionManager) {
         this.productoRepository = productoRepository;
         this.categoriaRepository = categoriaRepository;
         this.inventarioRepository = inventarioRepository;
         this.promocionRepository = promocionRepository;
+        this.imagenProductoRepository = imagenProductoRepository;
         this.storageService = storageService;
+        this.productoBatchMapper = productoBatchMapper;
+        this.catalogoSnapshotService = catalogoSnapshotService;
+        this.precioVigenteService = precioVigenteService;
+        this.jsonStreamingService = jsonStreamingService;
+        this.productoExcelService = productoExcelService;
+        this.productoImportService = productoImportService;
+        this.eventPublisher = eventPublisher;
+        this.lecturaTx = new TransactionTemplate(transactionManager);
+        this.lecturaTx.setReadOnly(true);
+        this.escrituraTx = new TransactionTemplate(transactionManager);
     }
 
     @Transactional(readOnly = true)
     public ProductoResponse mapToProductoResponse(Producto producto) {
-        Inventario inventario = inventarioRepository.findByProducto(producto)
-                .orElseGet(() -> {
-                    Inventario tempInv = new Inventario();
-                    tempInv.setStock(0);
-                    tempInv.setProducto(producto);
-                    return tempInv;
-                });
-
-        BigDecimal precioOriginal = producto.getPrecio();
-        BigDecimal precioConDescuento = precioOriginal;
-        BigDecimal descuentoAplicado = BigDecimal.ZERO;
-        String nombrePromocion = null;
-
-        LocalDateTime now = LocalDateTime.now();
-        List<Promocion> promocionesActivas = promocionRepository.findActivePromocionesForProducto(producto.getIdProducto(), now);
-
-        if (!promocionesActivas.isEmpty()) {
-            Optional<Promocion> mejorPromocionOpt = promocionesActivas.stream()
-                    .filter(p -> p.getDescuento() != null)
-                    .max(Comparator.comparing(Promocion::getDescuento));
-
-            if (mejorPromocionOpt.isPresent()) {
-                Promocion mejor = mejorPromocionOpt.get();
-                BigDecimal desc = mejor.getDescuento();
-                if (desc.compareTo(BigDecimal.ZERO) > 0 && desc.compareTo(new BigDecimal("100")) <= 0) {
-                    BigDecimal factor = desc.divide(BigDecimal.valueOf(100), 4, RoundingMode.HALF_UP);
-                    BigDecimal monto = precioOriginal.multiply(factor);
-                    precioConDescuento = precioOriginal.subtract(monto).setScale(2, RoundingMode.HALF_UP);
-                    descuentoAplicado = desc;
-                    nombrePromocion = mejor.getDescripcion();
-                }
-            }
-        }
-
-        List<PromocionSimpleDto> promocionesAsociadasDto = Collections.emptyList();
-        try {
-            Hibernate.initialize(producto.getPromociones());
-            if (producto.getPromociones() != null && !producto.getPromociones().isEmpty()) {
-                promocionesAsociadasDto = producto.getPromociones().stream()
-                        .map(promo -> PromocionSimpleDto.builder()
-                                .idPromocion(promo.getIdPromocion())
-                                .codigo(promo.getCodigo())
-                                .descripcion(promo.getDescripcion())
-                                .descuento(promo.getDescuento())
-                                .activa(promo.isActiva())
-                                .build())
-                        .collect(Collectors.toList());
-            }
-        } catch (Exception e) {
-            log.error("Error al mapear promociones", e);
-        }
-
-        // Mapeo Galería
-        List<ProductoResponse.ImagenDto> galeria = new ArrayList<>();
-        if (producto.getImagenes() != null) {
-            galeria = producto.getImagenes().stream()
-                    .map(img -> new ProductoResponse.ImagenDto(img.getId(), img.getUrl()))
-                    .collect(Collectors.toList());
-        }
-
-
-        List<ProductoResponse.LeyendaDto> leyendasDto = new ArrayList<>();
-        if (producto.getLeyendas() != null) {
-            leyendasDto = producto.getLeyendas().stream()
-                    .map(l -> new ProductoResponse.LeyendaDto(l.getId(), l.getNombre(), l.getNumero()))
-                    .collect(Collectors.toList());
-        }
-
-
-        return ProductoResponse.builder()
-                .id(producto.getIdProducto())
-                .nombre(producto.getNombre())
-                .descripcion(producto.getDescripcion())
-                .talla(producto.getTalla() != null ? producto.getTalla().name() : "N/A")
-                .precio(precioConDescuento)
-                .activo(producto.getActivo())
-                .categoriaNombre(producto.getCategoria() != null ? producto.getCategoria().getNombre() : "Sin Categoría")
-                .stock(inventario.getStock())
-                .imageUrl(producto.getImageUrl())
-                .galeriaImagenes(galeria)
-                .colorDorsal(producto.getColorDorsal())
-                .leyendas(leyendasDto)
-                // -----------------------------
-                .precioOriginal(precioOriginal)
-                .descuentoAplicado(descuentoAplicado)
-                .nombrePromocion(nombrePromocion)
-                .promocionesAsociadas(promocionesAsociadasDto)
-                .build();
+        return productoBatchMapper.mapear(producto);
     }
 
+    // Lecturas públicas: se sirven desde el snapshot en memoria y solo van a la BD en un miss
     @Override
-    @Transactional(readOnly = true)
     public List<ProductoResponse> getAllProductosActivos() {
-        return productoRepository.findByActivoTrue().stream().map(this::mapToProductoResponse).collect(Collectors.toList());
+        return catalogoSnapshotService.getActivos()
+                .orElseGet(() -> lecturaTx.execute(status -> productoBatchMapper.mapear(productoRepository.findActivosConCategoria())));
     }
     @Override
     @Transactional(readOnly = true)
     public List<ProductoResponse> getAllProductosIncludingInactive() {
-        return productoRepository.findAll().stream().map(this::mapToProductoResponse).collect(Collectors.toList());
+        return productoBatchMapper.mapear(productoRepository.findTodosConCategoria());
+    }
+
+    @Override
+    public void streamAllProductosIncludingInactive(OutputStream out) throws IOException {
+        long total = jsonStreamingService.escribirArray(out,
+                productoRepository::findLoteConCategoria,
+                Producto::getIdProducto,
+                productoBatchMapper::mapear);
+        log.info("Admin: {} productos enviados en streaming", total);
     }
     @Override
-    @Transactional(readOnly = true)
     public ProductoResponse getProductoById(Integer id) {
-        return mapToProductoResponse(productoRepository.findById(id).orElseThrow(() -> new EntityNotFoundException("Producto no encontrado")));
+        return catalogoSnapshotService.getPorId(id)
+                .orElseGet(() -> lecturaTx.execute(status -> mapToProductoResponse(
+                        productoRepository.findById(id).orElseThrow(() -> new EntityNotFoundException("Producto no encontrado")))));
     }
     @Override
-    @Transactional(readOnly = true)
     public List<ProductoResponse> getProductosByCategoria(String cat) {
         if (StringUtils.isBlank(cat)) return Collections.emptyList();
-        return productoRepository.findByCategoriaNombre(cat).stream().filter(p -> p.getActivo()).map(this::mapToProductoResponse).collect(Collectors.toList());
+        return catalogoSnapshotService.getActivosPorCategoria(cat)
+                .orElseGet(() -> lecturaTx.execute(status -> productoBatchMapper.mapear(productoRepository.findActivosByCategoriaNombre(cat))));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductoPaginaResponse getProductosPaginados(ProductoFiltroRequest filtro) {
+        return paginar(filtro, true);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductoPaginaResponse getProductosPaginadosAdmin(ProductoFiltroRequest filtro) {
+        return paginar(filtro, false);
+    }
+
+    // Keyset sobre (campo de orden, id_producto): cada página cuesta lo mismo sin importar la posición
+    private ProductoPaginaResponse paginar(ProductoFiltroRequest filtro, boolean soloActivos) {
+        String orden = StringUtils.defaultIfBlank(filtro.getOrden(), "id");
+        int limite = filtro.getLimite() != null ? filtro.getLimite() : 24;
+        String campo = campoDeOrden(orden);
+        boolean ascendente = !orden.endsWith("_desc");
+
+        List<Specification<Producto>> specs = new ArrayList<>();
+        specs.add(ProductoSpecifications.conCategoria());
+        if (soloActivos) {
+            specs.add(ProductoSpecifications.activo(true));
+        } else if (filtro.getActivo() != null) {
+            specs.add(ProductoSpecifications.activo(filtro.getActivo()));
+        }
+        if (StringUtils.isNotBlank(filtro.getCategoria())) {
+            specs.add(ProductoSpecifications.categoriaNombre(filtro.getCategoria()));
+        }
+        if (StringUtils.isNotBlank(filtro.getTalla())) {
+            specs.add(ProductoSpecifications.talla(tallaDeFiltro(filtro.getTalla())));
+        }
+        if (filtro.getPrecioMin() != null) {
+            specs.add(ProductoSpecifications.precioMinimo(filtro.getPrecioMin()));
+        }
+        if (filtro.getPrecioMax() != null) {
+            specs.add(ProductoSpecifications.precioMaximo(filtro.getPrecioMax()));
+        }
+        if (filtro.getEnStock() != null) {
+            specs.add(ProductoSpecifications.enStock(filtro.getEnStock()));
+        }
+        if (StringUtils.isNotBlank(filtro.getCursor())) {
+            specs.add(especificacionCursor(decodificarCursor(filtro.getCursor(), orden), campo, ascendente));
+        }
+        // El orden va en la Specification (no en un Sort) para poder ordenar por coalesce(precio_efectivo, precio)
+        specs.add(ProductoSpecifications.ordenadoPor(campo, ascendente));
+
+        // Se pide una fila de más para saber si hay página siguiente sin ejecutar COUNT
+        List<Producto> filas = productoRepository.findBy(Specification.allOf(specs),
+                q -> q.limit(limite + 1).all());
+
+        boolean hayMas = filas.size() > limite;
+        List<Producto> pagina = hayMas ? filas.subList(0, limite) : filas;
+
+        return ProductoPaginaResponse.builder()
+                .items(productoBatchMapper.mapear(pagina))
+                .siguienteCursor(hayMas ? codificarCursor(orden, pagina.get(pagina.size() - 1)) : null)
+                .hayMas(hayMas)
+                .limite(limite)
+                .build();
+    }
+
+    private static Producto.Talla tallaDeFiltro(String talla) {
+        try {
+            return Producto.Talla.valueOf(talla.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new SolicitudInvalidaException("Talla no válida: '" + talla + "'. Use S, M, L o XL");
+        }
+    }
+
+    private static String campoDeOrden(String orden) {
+        return switch (orden) {
+            case "precio_asc", "precio_desc" -> "precio";
+            case "nombre_asc", "nombre_desc" -> "nombre";
+            default -> null;
+        };
+    }
+
+    /**
+     * Posición decodificada de un cursor: último id y valor de orden (texto) de la página anterior.
+     */
+    static final class Cursor {
+        final Integer ultimoId;
+        final String valor;
+
+        Cursor(Integer ultimoId, String valor) {
+            this.ultimoId = ultimoId;
+            this.valor = valor;
+        }
+    }
+
+    // Cursor = base64url("orden:id:valor"); el valor va al final porque puede contener ':'.
+    // El precio es coalesce(precio_efectivo, precio), el mismo valor por el que se ordena y compara.
+    static String codificarCursor(String orden, Producto ultimo) {
+        String valor = switch (orden) {
+            case "precio_asc", "precio_desc" -> (ultimo.getPrecioEfectivo() != null ? ultimo.getPrecioEfectivo() : ultimo.getPrecio()).toPlainString();
+            case "nombre_asc", "nombre_desc" -> ultimo.getNombre();
+            default -> "";
+        };
+        String crudo = orden + ":" + ultimo.getIdProducto() + ":" + valor;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(crudo.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Cursor decodificarCursor(String cursor, String orden) {
+        String[] partes;
+        try {
+            partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 3);
+        } catch (IllegalArgumentException e) {
+            throw new SolicitudInvalidaException("Cursor no válido");
+        }
+        if (partes.length != 3 || !partes[0].equals(orden)) {
+            throw new SolicitudInvalidaException("El cursor no corresponde al orden solicitado");
+        }
+        try {
+            Cursor c = new Cursor(Integer.valueOf(partes[1]), partes[2]);
+            // El valor de un cursor de precio debe ser numérico (se valida aquí y no al armar la consulta)
+            if (orden.startsWith("precio_")) new BigDecimal(c.valor);
+            return c;
+        } catch (NumberFormatException e) {
+            throw new SolicitudInvalidaException("Cursor no válido");
+        }
+    }
+
+    private static Specification<Producto> especificacionCursor(Cursor cursor, String campo, boolean ascendente) {
+        if (campo == null) {
+            return ProductoSpecifications.<Integer>despuesDe(null, true, null, cursor.ultimoId);
+        }
+        if ("precio".equals(campo)) {
+            return ProductoSpecifications.despuesDe(campo, ascendente, new BigDecimal(cursor.valor), cursor.ultimoId);
+        }
+        return ProductoSpecifications.despuesDe(campo, ascendente, cursor.valor, cursor.ultimoId);
     }
 
     @Override
@@ -202,6 +301,8 @@ public class ProductoServiceImpl implements ProductoService {
 
         Producto saved = productoRepository.save(producto);
         Inventario inv = new Inventario(); inv.setProducto(saved); inv.setStock(0); inventarioRepository.save(inv);
+        precioVigenteService.recalcularProductos(List.of(saved.getIdProducto()));
+        eventPublisher.publishEvent(CatalogoModificadoEvent.deProducto(saved.getIdProducto()));
         return mapToProductoResponse(saved);
     }
 
@@ -244,7 +345,10 @@ public class ProductoServiceImpl implements ProductoService {
         }
 
 
-        return mapToProductoResponse(productoRepository.save(producto));
+        Producto actualizado = productoRepository.save(producto);
+        precioVigenteService.recalcularProductos(List.of(id));
+        eventPublisher.publishEvent(CatalogoModificadoEvent.deProducto(id));
+        return mapToProductoResponse(actualizado);
     }
 
     @Override
@@ -253,6 +357,7 @@ public class ProductoServiceImpl implements ProductoService {
         Producto p = productoRepository.findById(id).orElseThrow();
         p.setActivo(false);
         productoRepository.save(p);
+        eventPublisher.publishEvent(CatalogoModificadoEvent.deProducto(id));
     }
 
     @Override
@@ -262,6 +367,8 @@ public class ProductoServiceImpl implements ProductoService {
         Promocion pr = promocionRepository.findById(promid).orElseThrow();
         p.getPromociones().add(pr);
         productoRepository.save(p);
+        precioVigenteService.recalcularProductos(List.of(pid));
+        eventPublisher.publishEvent(CatalogoModificadoEvent.deProducto(pid));
     }
     @Override
     @Transactional
@@ -270,35 +377,115 @@ public class ProductoServiceImpl implements ProductoService {
         Promocion pr = promocionRepository.findById(promid).orElseThrow();
         p.getPromociones().remove(pr);
         productoRepository.save(p);
+        precioVigenteService.recalcularProductos(List.of(pid));
+        eventPublisher.publishEvent(CatalogoModificadoEvent.deProducto(pid));
     }
     @Override
     @Transactional
     public ProductoResponse uploadProductImage(Integer id, MultipartFile file) {
         try {
             Producto p = productoRepository.findById(id).orElseThrow();
-            p.setImageUrl(BASE_URL + storageService.storeFile(file));
-            return mapToProductoResponse(productoRepository.save(p));
-        } catch(Exception e) { throw new RuntimeException(e); }
+            String archivo = storageService.storeFile(file);
+            storageService.actualizarReferencias(p.getImageUrl(), BASE_URL + archivo);
+            p.setImageUrl(BASE_URL + archivo);
+            // Las variantes de la imagen anterior ya no aplican; se regeneran tras el commit
+            p.setImageThumbUrl(null);
+            p.setImageCardUrl(null);
+            p.setImageDetailUrl(null);
+            Producto guardado = productoRepository.save(p);
+            eventPublisher.publishEvent(CatalogoModificadoEvent.deProducto(id));
+            eventPublisher.publishEvent(ImagenSubidaEvent.portada(id, archivo, guardado.getImageUrl()));
+            return mapToProductoResponse(guardado);
+        } catch(IOException e) { throw new RuntimeException(e); }
     }
     @Override
     @Transactional
     public ProductoResponse uploadGalleryImage(Integer id, MultipartFile file) {
         try {
             Producto p = productoRepository.findById(id).orElseThrow();
+            String archivo = storageService.storeFile(file);
             ImagenProducto img = new ImagenProducto();
-            img.setUrl(BASE_URL + storageService.storeFile(file));
+            img.setUrl(BASE_URL + archivo);
             img.setProducto(p);
+            storageService.actualizarReferencias(null, img.getUrl());
+            // Se guarda directamente para conocer su id antes de anunciar la subida
+            img = imagenProductoRepository.save(img);
             p.getImagenes().add(img);
-            return mapToProductoResponse(productoRepository.save(p));
-        } catch(Exception e) { throw new RuntimeException(e); }
+            Producto guardado = productoRepository.save(p);
+            eventPublisher.publishEvent(CatalogoModificadoEvent.deProducto(id));
+            eventPublisher.publishEvent(ImagenSubidaEvent.galeria(id, img.getId(), archivo, img.getUrl()));
+            return mapToProductoResponse(guardado);
+        } catch(IOException e) { throw new RuntimeException(e); }
+    }
+    @Override
+    public ProductoResponse uploadGalleryImages(Integer id, List<MultipartFile> files) {
+        if (files == null || files.isEmpty()) {
+            throw new SolicitudInvalidaException("Debe enviar al menos una imagen");
+        }
+        if (files.size() > MAX_IMAGENES_POR_LOTE) {
+            throw new SolicitudInvalidaException("Máximo " + MAX_IMAGENES_POR_LOTE + " imágenes por lote");
+        }
+        // El tipo real (magic bytes) y el tamaño los valida StorageService al guardar
+        for (MultipartFile file : files) {
+            if (file.isEmpty()) {
+                throw new SolicitudInvalidaException("Archivo vacío en el lote: " + file.getOriginalFilename());
+            }
+        }
+        if (!productoRepository.existsById(id)) {
+            throw new EntityNotFoundException("Producto no encontrado con ID: " + id);
+        }
+
+        // Los archivos se escriben en paralelo fuera de la transacción (no retiene conexión durante la E/S)
+        List<String> archivos;
+        try {
+            archivos = storageService.storeFiles(files);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        ProductoResponse response = escrituraTx.execute(status -> {
+            Producto p = productoRepository.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException("Producto no encontrado con ID: " + id));
+            List<ImagenProducto> nuevas = new ArrayList<>(archivos.size());
+            for (String archivo : archivos) {
+                ImagenProducto img = new ImagenProducto();
+                img.setUrl(BASE_URL + archivo);
+                img.setProducto(p);
+                storageService.actualizarReferencias(null, img.getUrl());
+                nuevas.add(img);
+            }
+            nuevas = imagenProductoRepository.saveAll(nuevas);
+            p.getImagenes().addAll(nuevas);
+
+            eventPublisher.publishEvent(CatalogoModificadoEvent.deProducto(id));
+            for (int i = 0; i < nuevas.size(); i++) {
+                ImagenProducto img = nuevas.get(i);
+                eventPublisher.publishEvent(ImagenSubidaEvent.galeria(id, img.getId(), archivos.get(i), img.getUrl()));
+            }
+            return mapToProductoResponse(p);
+        });
+        log.info("{} imágenes agregadas a la galería del producto ID {}", archivos.size(), id);
+        return response;
     }
     @Override
     @Transactional
     public void deleteGalleryImage(Integer pid, Integer imgId) {
         Producto p = productoRepository.findById(pid).orElseThrow();
-        p.getImagenes().removeIf(i -> i.getId().equals(imgId));
+        p.getImagenes().removeIf(i -> {
+            if (!i.getId().equals(imgId)) return false;
+            storageService.actualizarReferencias(i.getUrl(), null);
+            return true;
+        });
         productoRepository.save(p);
+        eventPublisher.publishEvent(CatalogoModificadoEvent.deProducto(pid));
     }
     @Override
-    public Resource exportProductosToExcel() throws IOException { return new ByteArrayResource(new byte[0]); }
+    public void exportProductosToExcel(OutputStream out) throws IOException {
+        productoExcelService.exportarProductos(out);
+    }
+
+    @Override
+    public ImportacionProductosResponse importarProductos(MultipartFile archivo) throws IOException {
+        return productoImportService.importar(archivo);
+    }
 }
\ No newline at end of file
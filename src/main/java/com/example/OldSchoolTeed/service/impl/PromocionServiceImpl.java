@@ -2,23 +2,43 @@ package com.example.OldSchoolTeed.service.impl;
 
 import com.example.OldSchoolTeed.dto.PromocionRequest;
 import com.example.OldSchoolTeed.dto.PromocionResponse;
+import com.example.OldSchoolTeed.entities.Producto;
 import com.example.OldSchoolTeed.entities.Promocion;
 import com.example.OldSchoolTeed.repository.PromocionRepository;
+import com.example.OldSchoolTeed.service.PrecioVigenteService;
 import com.example.OldSchoolTeed.service.PromocionService;
+import com.example.OldSchoolTeed.service.event.CatalogoModificadoEvent;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class PromocionServiceImpl implements PromocionService {
 
     private final PromocionRepository promocionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PrecioVigenteService precioVigenteService;
 
-    public PromocionServiceImpl(PromocionRepository promocionRepository) {
+    public PromocionServiceImpl(PromocionRepository promocionRepository, ApplicationEventPublisher eventPublisher,
+                                PrecioVigenteService precioVigenteService) {
         this.promocionRepository = promocionRepository;
+        this.eventPublisher = eventPublisher;
+        this.precioVigenteService = precioVigenteService;
+    }
+
+    // Los productos asociados muestran precio/descuento de la promoción:
+    // rematerializar su precio efectivo, reprogramar fronteras y avisar al catálogo
+    private void notificarProductosAfectados(Promocion promocion) {
+        Set<Integer> productoIds = promocion.getProductos().stream()
+                .map(Producto::getIdProducto)
+                .collect(Collectors.toSet());
+        precioVigenteService.promocionModificada(productoIds);
+        eventPublisher.publishEvent(CatalogoModificadoEvent.deProductos(productoIds));
     }
 
     //  Lógica de Mapeo (Helper)
@@ -46,6 +66,9 @@ public class PromocionServiceImpl implements PromocionService {
         promocion.setActiva(request.isActiva());
 
         Promocion promocionGuardada = promocionRepository.save(promocion);
+        // Aún no tiene productos, pero sus fechas pueden adelantar la próxima frontera
+        precioVigenteService.reprogramar();
+        eventPublisher.publishEvent(CatalogoModificadoEvent.metadatos());
         return mapToPromocionResponse(promocionGuardada);
     }
 
@@ -63,6 +86,7 @@ public class PromocionServiceImpl implements PromocionService {
         promocion.setActiva(request.isActiva());
 
         Promocion promocionActualizada = promocionRepository.save(promocion);
+        notificarProductosAfectados(promocionActualizada);
         return mapToPromocionResponse(promocionActualizada);
     }
 
@@ -75,6 +99,7 @@ public class PromocionServiceImpl implements PromocionService {
         // Borrado lógico en lugar de físico
         promocion.setActiva(false);
         promocionRepository.save(promocion);
+        notificarProductosAfectados(promocion);
     }
 
     @Override
@@ -0,0 +1,39 @@
+-- Paso de IDENTITY a secuencias con asignacion por bloques (allocationSize = 50, optimizador pooled).
+-- Se ejecuta en cada arranque despues de Hibernate (ddl-auto) y es idempotente:
+--   1) crea la secuencia si Hibernate no la creo (ddl-auto=none),
+--   2) quita IDENTITY de la columna (los ids existentes se conservan),
+--   3) deja nextval como DEFAULT para los INSERT por JDBC que no envian id (importacion),
+--   4) adelanta la secuencia hasta el mayor id existente.
+-- Con 'pooled' cada valor v de la secuencia reserva el bloque (v-49 .. v], asi que un INSERT que toma v
+-- directamente nunca choca con un bloque que Hibernate tenga en memoria.
+DO $$
+DECLARE
+    t TEXT[];
+    max_id BIGINT;
+    ultimo BIGINT;
+BEGIN
+    FOREACH t SLICE 1 IN ARRAY ARRAY[
+        ['pedido', 'id_pedido'],
+        ['detalle_pedido', 'id_detalle_pedido'],
+        ['detalle_carrito', 'id_detalle_carrito'],
+        ['inventario', 'id_inventario'],
+        ['imagen_producto', 'id'],
+        ['leyenda', 'id'],
+        ['pago', 'id_pago'],
+        ['envio', 'id_envio']
+    ] LOOP
+        IF to_regclass(t[1]) IS NULL THEN
+            CONTINUE;
+        END IF;
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I INCREMENT BY 50', t[1] || '_seq');
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN %I DROP IDENTITY IF EXISTS', t[1], t[2]);
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN %I SET DEFAULT nextval(%L)', t[1], t[2], t[1] || '_seq');
+
+        EXECUTE format('SELECT max(%I) FROM %I', t[2], t[1]) INTO max_id;
+        EXECUTE format('SELECT last_value FROM %I', t[1] || '_seq') INTO ultimo;
+        IF max_id IS NOT NULL AND max_id > ultimo THEN
+            PERFORM setval(t[1] || '_seq', max_id);
+        END IF;
+    END LOOP;
+END
+$$
@@ -0,0 +1,49 @@
+package com.example.OldSchoolTeed.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArchivoEstaticoServiceTest {
+
+    @Test
+    void rangoCerradoYAbierto() {
+        assertThat(ArchivoEstaticoService.parsearRango("bytes=0-0", 100)).containsExactly(0, 0);
+        assertThat(ArchivoEstaticoService.parsearRango("bytes=10-19", 100)).containsExactly(10, 19);
+        assertThat(ArchivoEstaticoService.parsearRango("bytes=90-", 100)).containsExactly(90, 99);
+    }
+
+    @Test
+    void finMayorQueElArchivoSeRecorta() {
+        assertThat(ArchivoEstaticoService.parsearRango("bytes=50-500", 100)).containsExactly(50, 99);
+    }
+
+    @Test
+    void rangoSufijo() {
+        assertThat(ArchivoEstaticoService.parsearRango("bytes=-10", 100)).containsExactly(90, 99);
+        assertThat(ArchivoEstaticoService.parsearRango("bytes=-500", 100)).containsExactly(0, 99);
+    }
+
+    @Test
+    void rangosNoSatisfaciblesDevuelvenNull() {
+        assertThat(ArchivoEstaticoService.parsearRango("bytes=100-", 100)).isNull();
+        assertThat(ArchivoEstaticoService.parsearRango("bytes=150-200", 100)).isNull();
+        assertThat(ArchivoEstaticoService.parsearRango("bytes=20-10", 100)).isNull();
+        assertThat(ArchivoEstaticoService.parsearRango("bytes=-0", 100)).isNull();
+        assertThat(ArchivoEstaticoService.parsearRango("bytes=-10", 0)).isNull();
+    }
+
+    @Test
+    void variosRangosOSintaxisDesconocidaSeIgnoran() {
+        assertThat(ArchivoEstaticoService.parsearRango("bytes=0-1,5-6", 100)).isEmpty();
+        assertThat(ArchivoEstaticoService.parsearRango("bytes=-", 100)).isEmpty();
+        assertThat(ArchivoEstaticoService.parsearRango("items=0-10", 100)).isEmpty();
+        assertThat(ArchivoEstaticoService.parsearRango("bytes=a-b", 100)).isEmpty();
+    }
+
+    @Test
+    void numerosDesbordadosSeIgnoran() {
+        assertThat(ArchivoEstaticoService.parsearRango("bytes=99999999999999999999-", 100)).isEmpty();
+        assertThat(ArchivoEstaticoService.parsearRango("bytes=-99999999999999999999", 100)).isEmpty();
+    }
+}
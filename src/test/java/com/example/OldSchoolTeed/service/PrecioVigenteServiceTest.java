@@ -0,0 +1,109 @@
+package com.example.OldSchoolTeed.service;
+
+import com.example.OldSchoolTeed.entities.Promocion;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrecioVigenteServiceTest {
+
+    private static final LocalDateTime AHORA = LocalDateTime.of(2026, 3, 15, 12, 0);
+    private static final BigDecimal PRECIO = new BigDecimal("100.00");
+
+    private static Promocion promocion(String descuento, LocalDateTime inicio, LocalDateTime fin, boolean activa) {
+        Promocion p = new Promocion();
+        p.setDescripcion("Promo " + descuento);
+        p.setDescuento(new BigDecimal(descuento));
+        p.setFechaInicio(inicio);
+        p.setFechaFin(fin);
+        p.setActiva(activa);
+        return p;
+    }
+
+    private static Promocion vigente(String descuento) {
+        return promocion(descuento, AHORA.minusDays(1), AHORA.plusDays(1), true);
+    }
+
+    @Test
+    void sinPromocionesDevuelveElPrecioBase() {
+        PrecioVigenteService.PrecioVigente r = PrecioVigenteService.calcular(PRECIO, List.of(), AHORA);
+
+        assertThat(r.getPrecio()).isEqualByComparingTo("100.00");
+        assertThat(r.getDescuento()).isEqualByComparingTo("0");
+        assertThat(r.getNombrePromocion()).isNull();
+    }
+
+    @Test
+    void aplicaLaMejorPromocionActiva() {
+        PrecioVigenteService.PrecioVigente r = PrecioVigenteService.calcular(PRECIO,
+                List.of(vigente("10"), vigente("25"), vigente("15")), AHORA);
+
+        assertThat(r.getPrecio()).isEqualByComparingTo("75.00");
+        assertThat(r.getDescuento()).isEqualByComparingTo("25");
+        assertThat(r.getNombrePromocion()).isEqualTo("Promo 25");
+    }
+
+    @Test
+    void redondeaADosDecimales() {
+        PrecioVigenteService.PrecioVigente r = PrecioVigenteService.calcular(new BigDecimal("19.99"), List.of(vigente("33.33")), AHORA);
+
+        assertThat(r.getPrecio()).isEqualTo(new BigDecimal("13.33"));
+    }
+
+    @Test
+    void lasFronterasDeLaVentanaSonInclusivas() {
+        Promocion empiezaAhora = promocion("20", AHORA, AHORA.plusDays(1), true);
+        Promocion terminaAhora = promocion("30", AHORA.minusDays(1), AHORA, true);
+
+        assertThat(PrecioVigenteService.calcular(PRECIO, List.of(empiezaAhora), AHORA).getPrecio()).isEqualByComparingTo("80.00");
+        assertThat(PrecioVigenteService.calcular(PRECIO, List.of(terminaAhora), AHORA).getPrecio()).isEqualByComparingTo("70.00");
+    }
+
+    @Test
+    void ignoraPromocionesInactivasOFueraDeVentana() {
+        Promocion inactiva = promocion("50", AHORA.minusDays(1), AHORA.plusDays(1), false);
+        Promocion futura = promocion("40", AHORA.plusSeconds(1), AHORA.plusDays(1), true);
+        Promocion vencida = promocion("30", AHORA.minusDays(2), AHORA.minusSeconds(1), true);
+
+        PrecioVigenteService.PrecioVigente r = PrecioVigenteService.calcular(PRECIO,
+                List.of(inactiva, futura, vencida, vigente("10")), AHORA);
+
+        assertThat(r.getPrecio()).isEqualByComparingTo("90.00");
+        assertThat(r.getDescuento()).isEqualByComparingTo("10");
+    }
+
+    @Test
+    void descuentosFueraDeRangoNoOcultanUnaPromocionValida() {
+        PrecioVigenteService.PrecioVigente r = PrecioVigenteService.calcular(PRECIO,
+                List.of(vigente("150"), vigente("0"), vigente("15")), AHORA);
+
+        assertThat(r.getPrecio()).isEqualByComparingTo("85.00");
+        assertThat(r.getDescuento()).isEqualByComparingTo("15");
+    }
+
+    @Test
+    void soloDescuentosFueraDeRangoDejanElPrecioBase() {
+        PrecioVigenteService.PrecioVigente r = PrecioVigenteService.calcular(PRECIO,
+                List.of(vigente("0"), vigente("100.01")), AHORA);
+
+        assertThat(r.getPrecio()).isEqualByComparingTo("100.00");
+        assertThat(r.getNombrePromocion()).isNull();
+    }
+
+    @Test
+    void descuentoDelCienPorCientoDejaPrecioCero() {
+        assertThat(PrecioVigenteService.calcular(PRECIO, List.of(vigente("100")), AHORA).getPrecio()).isEqualByComparingTo("0.00");
+    }
+
+    @Test
+    void precioNuloSeDevuelveSinDescuento() {
+        PrecioVigenteService.PrecioVigente r = PrecioVigenteService.calcular(null, List.of(vigente("20")), AHORA);
+
+        assertThat(r.getPrecio()).isNull();
+        assertThat(r.getDescuento()).isEqualByComparingTo("0");
+    }
+}
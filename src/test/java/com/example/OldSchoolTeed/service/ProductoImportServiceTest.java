@@ -0,0 +1,106 @@
+package com.example.OldSchoolTeed.service;
+
+import com.example.OldSchoolTeed.Config.exception.SolicitudInvalidaException;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductoImportServiceTest {
+
+    //  parsearPrecio
+
+    @Test
+    void precioConAmbosSeparadoresUsaElUltimoComoDecimal() {
+        assertThat(ProductoImportService.parsearPrecio("S/ 1.234,50")).isEqualByComparingTo("1234.50");
+        assertThat(ProductoImportService.parsearPrecio("1,234.50")).isEqualByComparingTo("1234.50");
+    }
+
+    @Test
+    void precioConUnSeparadorYUnoODosDecimales() {
+        assertThat(ProductoImportService.parsearPrecio("$19.90")).isEqualTo(new BigDecimal("19.90"));
+        assertThat(ProductoImportService.parsearPrecio("19,9")).isEqualTo(new BigDecimal("19.90"));
+        assertThat(ProductoImportService.parsearPrecio("120")).isEqualTo(new BigDecimal("120.00"));
+    }
+
+    @Test
+    void precioConSeparadorRepetidoEsDeMiles() {
+        assertThat(ProductoImportService.parsearPrecio("1.234.567")).isEqualByComparingTo("1234567");
+        assertThat(ProductoImportService.parsearPrecio("1,234,567")).isEqualByComparingTo("1234567");
+    }
+
+    @Test
+    void precioAmbiguoSeRechaza() {
+        assertThatThrownBy(() -> ProductoImportService.parsearPrecio("1,234"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("ambiguo");
+        assertThatThrownBy(() -> ProductoImportService.parsearPrecio("1.234"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("ambiguo");
+    }
+
+    @Test
+    void precioNoSeRedondea() {
+        assertThatThrownBy(() -> ProductoImportService.parsearPrecio("1,234.567"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("2 decimales");
+        assertThatThrownBy(() -> ProductoImportService.parsearPrecio("19.9999"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void precioInvalidoCeroONegativo() {
+        assertThatThrownBy(() -> ProductoImportService.parsearPrecio(null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ProductoImportService.parsearPrecio("abc")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ProductoImportService.parsearPrecio("1.23.4")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ProductoImportService.parsearPrecio("0")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ProductoImportService.parsearPrecio("-5")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ProductoImportService.parsearPrecio("123456789")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    //  CSV
+
+    @Test
+    void dividirRespetaComillasYComillasEscapadas() {
+        assertThat(ProductoImportService.dividirCsv("a,\"b, c\",\"di \"\"x\"\"\",", ','))
+                .containsExactly("a", "b, c", "di \"x\"", "");
+        assertThat(ProductoImportService.dividirCsv("a;b;c", ';')).containsExactly("a", "b", "c");
+    }
+
+    @Test
+    void registroConSaltoDeLineaEntreComillasSeLeeCompleto() throws IOException {
+        ProductoImportService.LectorRegistrosCsv lector = lector("nombre,descripcion\nCamiseta,\"linea 1\nlinea 2\"\nShort,x\n");
+
+        assertThat(lector.siguiente()).isEqualTo("nombre,descripcion");
+        String registro = lector.siguiente();
+        assertThat(lector.lineaInicial()).isEqualTo(2);
+        List<String> campos = ProductoImportService.dividirCsv(registro, ',');
+        assertThat(campos).containsExactly("Camiseta", "linea 1\nlinea 2");
+
+        assertThat(lector.siguiente()).isEqualTo("Short,x");
+        assertThat(lector.lineaInicial()).isEqualTo(4);
+        assertThat(lector.siguiente()).isNull();
+    }
+
+    @Test
+    void comillasEscapadasNoAbrenUnCampo() throws IOException {
+        ProductoImportService.LectorRegistrosCsv lector = lector("a,\"dice \"\"hola\"\"\"\nb,c\n");
+        assertThat(lector.siguiente()).isEqualTo("a,\"dice \"\"hola\"\"\"");
+        assertThat(lector.siguiente()).isEqualTo("b,c");
+    }
+
+    @Test
+    void comillasSinCerrarSeRechazan() throws IOException {
+        ProductoImportService.LectorRegistrosCsv lector = lector("a,b\nc,\"abierto\nd,e\n");
+        lector.siguiente();
+        assertThatThrownBy(lector::siguiente)
+                .isInstanceOf(SolicitudInvalidaException.class).hasMessageContaining("línea 2");
+    }
+
+    private static ProductoImportService.LectorRegistrosCsv lector(String contenido) {
+        return new ProductoImportService.LectorRegistrosCsv(new BufferedReader(new StringReader(contenido)));
+    }
+}
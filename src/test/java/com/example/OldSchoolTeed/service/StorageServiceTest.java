@@ -0,0 +1,46 @@
+package com.example.OldSchoolTeed.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StorageServiceTest {
+
+    private static byte[] bytes(int... valores) {
+        byte[] b = new byte[valores.length];
+        for (int i = 0; i < valores.length; i++) b[i] = (byte) valores[i];
+        return b;
+    }
+
+    @Test
+    void reconoceLasFirmasAdmitidas() {
+        assertThat(StorageService.extensionPorFirma(bytes(0xFF, 0xD8, 0xFF, 0xE0))).isEqualTo(".jpg");
+        assertThat(StorageService.extensionPorFirma(bytes(0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A))).isEqualTo(".png");
+        assertThat(StorageService.extensionPorFirma("GIF87a".getBytes(StandardCharsets.US_ASCII))).isEqualTo(".gif");
+        assertThat(StorageService.extensionPorFirma("GIF89a".getBytes(StandardCharsets.US_ASCII))).isEqualTo(".gif");
+        assertThat(StorageService.extensionPorFirma(bytes('R', 'I', 'F', 'F', 0x24, 0, 0, 0, 'W', 'E', 'B', 'P'))).isEqualTo(".webp");
+    }
+
+    @Test
+    void cabecerasTruncadasNoSeAdmiten() {
+        assertThat(StorageService.extensionPorFirma(new byte[0])).isNull();
+        assertThat(StorageService.extensionPorFirma(bytes(0xFF, 0xD8))).isNull();
+        assertThat(StorageService.extensionPorFirma(bytes(0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A))).isNull();
+        assertThat(StorageService.extensionPorFirma("GIF89".getBytes(StandardCharsets.US_ASCII))).isNull();
+        assertThat(StorageService.extensionPorFirma(bytes('R', 'I', 'F', 'F', 0x24, 0, 0, 0, 'W', 'E', 'B'))).isNull();
+    }
+
+    @Test
+    void riffSinWebpNoEsImagen() {
+        assertThat(StorageService.extensionPorFirma(bytes('R', 'I', 'F', 'F', 0x24, 0, 0, 0, 'W', 'A', 'V', 'E'))).isNull();
+    }
+
+    @Test
+    void otrosFormatosNoSeAdmiten() {
+        assertThat(StorageService.extensionPorFirma("GIF88a".getBytes(StandardCharsets.US_ASCII))).isNull();
+        assertThat(StorageService.extensionPorFirma("<svg xmlns=".getBytes(StandardCharsets.US_ASCII))).isNull();
+        assertThat(StorageService.extensionPorFirma(bytes('%', 'P', 'D', 'F', '-', '1', '.', '4'))).isNull();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.OldSchoolTeed.service.impl;
+
+import com.example.OldSchoolTeed.Config.exception.SolicitudInvalidaException;
+import com.example.OldSchoolTeed.entities.Producto;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductoServiceImplCursorTest {
+
+    @Test
+    void cursorDePrecioUsaElPrecioEfectivo() {
+        Producto p = producto(7, "Camiseta", "100.00", "80.00");
+        ProductoServiceImpl.Cursor c = roundTrip("precio_asc", p);
+        assertThat(c.ultimoId).isEqualTo(7);
+        assertThat(c.valor).isEqualTo("80.00");
+    }
+
+    @Test
+    void cursorDePrecioSinMaterializarUsaElPrecioBase() {
+        Producto p = producto(9, "Short", "55.50", null);
+        ProductoServiceImpl.Cursor c = roundTrip("precio_desc", p);
+        assertThat(c.ultimoId).isEqualTo(9);
+        assertThat(c.valor).isEqualTo("55.50");
+    }
+
+    @Test
+    void cursorDeNombreConservaLosDosPuntos() {
+        Producto p = producto(3, "Retro: edición 90's", "10", null);
+        ProductoServiceImpl.Cursor c = roundTrip("nombre_asc", p);
+        assertThat(c.ultimoId).isEqualTo(3);
+        assertThat(c.valor).isEqualTo("Retro: edición 90's");
+    }
+
+    @Test
+    void cursorPorId() {
+        ProductoServiceImpl.Cursor c = roundTrip("id", producto(42, "X", "1", null));
+        assertThat(c.ultimoId).isEqualTo(42);
+        assertThat(c.valor).isEmpty();
+    }
+
+    @Test
+    void cursorDeOtroOrdenSeRechaza() {
+        String cursor = ProductoServiceImpl.codificarCursor("precio_asc", producto(1, "X", "1", null));
+        assertThatThrownBy(() -> ProductoServiceImpl.decodificarCursor(cursor, "nombre_asc"))
+                .isInstanceOf(SolicitudInvalidaException.class);
+    }
+
+    @Test
+    void cursorMalformadoSeRechaza() {
+        assertThatThrownBy(() -> ProductoServiceImpl.decodificarCursor("%%%", "id"))
+                .isInstanceOf(SolicitudInvalidaException.class);
+        assertThatThrownBy(() -> ProductoServiceImpl.decodificarCursor(base64("id:abc:"), "id"))
+                .isInstanceOf(SolicitudInvalidaException.class);
+        assertThatThrownBy(() -> ProductoServiceImpl.decodificarCursor(base64("precio_asc:1:no-numero"), "precio_asc"))
+                .isInstanceOf(SolicitudInvalidaException.class);
+        assertThatThrownBy(() -> ProductoServiceImpl.decodificarCursor(base64("id:1"), "id"))
+                .isInstanceOf(SolicitudInvalidaException.class);
+    }
+
+    private static ProductoServiceImpl.Cursor roundTrip(String orden, Producto p) {
+        return ProductoServiceImpl.decodificarCursor(ProductoServiceImpl.codificarCursor(orden, p), orden);
+    }
+
+    private static Producto producto(int id, String nombre, String precio, String precioEfectivo) {
+        Producto p = new Producto();
+        p.setIdProducto(id);
+        p.setNombre(nombre);
+        p.setPrecio(new BigDecimal(precio));
+        p.setPrecioEfectivo(precioEfectivo != null ? new BigDecimal(precioEfectivo) : null);
+        return p;
+    }
+
+    private static String base64(String crudo) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(crudo.getBytes(StandardCharsets.UTF_8));
+    }
+}